@@ -0,0 +1,20 @@
+package com.amigoscode;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TracingConfig {
+
+    // every SpanExporter bean is added to the tracer, an OTLP exporter is picked up the
+    // same way once opentelemetry-exporter-otlp and management.otlp.tracing.endpoint are set
+    @Bean
+    @ConditionalOnProperty(prefix = "customer.tracing", name = "exporter", havingValue = "logging")
+    public SpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+
+}
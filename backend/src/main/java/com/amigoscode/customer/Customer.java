@@ -6,14 +6,13 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(
-        name = "customer",
-        uniqueConstraints = {
-                @UniqueConstraint(
-                        name = "cons_customer_email_unique",
-                        columnNames = {"email"}
-                )
-        }
+// emails are unique ignoring case, through the index EMAIL_UNIQUE_CONSTRAINT on lower(email)
+@Table(name = "customer")
+// rows of the fuzzy search, see CustomerSearchRepositoryImpl#findSimilar
+@SqlResultSetMapping(
+        name = Customer.MATCH_RESULT_MAPPING,
+        entities = @EntityResult(entityClass = Customer.class),
+        columns = @ColumnResult(name = "similarity", type = Float.class)
 )
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,13 +20,16 @@ import lombok.NoArgsConstructor;
 public class Customer {
 
     public static final String CUSTOMER_ID_SEQUENCE = "customer_id_seq";
+    // must match the sequence's INCREMENT BY, see V3__Customer_Id_Allocation.sql
+    public static final int CUSTOMER_ID_ALLOCATION_SIZE = 50;
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "cons_customer_email_lower_unique";
+    static final String MATCH_RESULT_MAPPING = "CustomerMatch";
 
     @Id
     @SequenceGenerator(
             name = CUSTOMER_ID_SEQUENCE,
             sequenceName = CUSTOMER_ID_SEQUENCE,
-//            initialValue = 1,
-            allocationSize = 1
+            allocationSize = CUSTOMER_ID_ALLOCATION_SIZE
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -35,7 +37,7 @@ public class Customer {
     )
 
     @Column(nullable = false)
-    private Integer id;
+    private Long id;
 
     @Column(nullable = false)
     private String name;
@@ -0,0 +1,215 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.customer.CustomerStats.AgeBucket;
+import com.amigoscode.customer.CustomerStats.EmailDomainCount;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Customer count, age histogram and email domain counts, kept in memory and updated by
+ * {@link CustomerStatsDataAccessService} on every write so that {@link #stats()} never reads
+ * the table. Each answer costs the number of age buckets plus the number of top domains.
+ * <p>
+ * They are loaded once the application is ready, and writes that bypass the service make
+ * them drift. They are replaced periodically by {@link CustomerDAO#countCustomers()}, a
+ * grouped scan of the source DAO, never on a request thread. Writes that commit while that
+ * scan runs may be missed or counted twice until the next reconciliation.
+ */
+@Slf4j
+public class CustomerAggregates {
+
+    // most customers first, ties by name so that the ranking is stable
+    private static final Comparator<EmailDomainCount> DOMAIN_RANKING = Comparator
+            .comparingLong(EmailDomainCount::count)
+            .reversed()
+            .thenComparing(EmailDomainCount::domain);
+
+    private final CustomerDAO source;
+    private final CustomerStatsProperties properties;
+    private final AtomicLong drift = new AtomicLong();
+
+    // not synchronized, a virtual thread blocked on a lock would pin its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    // guarded by lock, and replaced as a whole by a reconciliation
+    private long count;
+    private NavigableMap<Integer, Long> countsByAgeBucket = new TreeMap<>();
+    private Map<String, Long> countsByDomain = new HashMap<>();
+    private NavigableSet<EmailDomainCount> domainRanking = new TreeSet<>(DOMAIN_RANKING);
+    private volatile Instant reconciledAt;
+
+    public CustomerAggregates(CustomerDAO source,
+                              CustomerStatsProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.source = source;
+        this.properties = properties;
+        Gauge.builder("customer.stats.drift", drift, AtomicLong::get)
+                .description("Differences between the aggregates and the database found by the last reconciliation")
+                .register(meterRegistry);
+    }
+
+    public void added(Customer customer) {
+        lock.lock();
+        try {
+            count++;
+            addToAgeBucket(customer.getAge(), 1);
+            addToDomain(CustomerSearch.emailDomain(customer.getEmail()), 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void removed(Customer customer) {
+        lock.lock();
+        try {
+            count--;
+            addToAgeBucket(customer.getAge(), -1);
+            addToDomain(CustomerSearch.emailDomain(customer.getEmail()), -1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void added(CustomerCounts customers) {
+        lock.lock();
+        try {
+            count += customers.total();
+            customers.byAge().forEach(this::addToAgeBucket);
+            customers.byEmailDomain().forEach(this::addToDomain);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void changed(Customer before, Customer after) {
+        String domainBefore = CustomerSearch.emailDomain(before.getEmail());
+        String domainAfter = CustomerSearch.emailDomain(after.getEmail());
+        lock.lock();
+        try {
+            if (!before.getAge().equals(after.getAge())) {
+                addToAgeBucket(before.getAge(), -1);
+                addToAgeBucket(after.getAge(), 1);
+            }
+            if (!domainBefore.equals(domainAfter)) {
+                addToDomain(domainBefore, -1);
+                addToDomain(domainAfter, 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int ageBucket(int age) {
+        return Math.floorDiv(age, properties.ageBucketWidth()) * properties.ageBucketWidth();
+    }
+
+    private void addToAgeBucket(int age, long delta) {
+        countsByAgeBucket.compute(ageBucket(age), (bucket, current) -> {
+            long updated = (current == null ? 0 : current) + delta;
+            return updated > 0 ? updated : null;
+        });
+    }
+
+    private void addToDomain(String domain, long delta) {
+        Long current = countsByDomain.get(domain);
+        if (current != null) {
+            domainRanking.remove(new EmailDomainCount(domain, current));
+        }
+        long updated = (current == null ? 0 : current) + delta;
+        if (updated > 0) {
+            countsByDomain.put(domain, updated);
+            domainRanking.add(new EmailDomainCount(domain, updated));
+        } else {
+            countsByDomain.remove(domain);
+        }
+    }
+
+    public CustomerStats stats() {
+        lock.lock();
+        try {
+            List<AgeBucket> ageHistogram = countsByAgeBucket.entrySet().stream()
+                    .map(bucket -> new AgeBucket(
+                            bucket.getKey(),
+                            bucket.getKey() + properties.ageBucketWidth() - 1,
+                            bucket.getValue()
+                    ))
+                    .toList();
+            List<EmailDomainCount> topEmailDomains = domainRanking.stream()
+                    .limit(properties.topEmailDomains())
+                    .toList();
+            return new CustomerStats(count, ageHistogram, topEmailDomains, reconciledAt);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${customer.stats.reconcile-interval:PT10M}",
+            fixedDelayString = "${customer.stats.reconcile-interval:PT10M}"
+    )
+    public void reconcile() {
+        reconcileLock.lock();
+        try {
+            reconcileAggregates();
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void reconcileAggregates() {
+        long start = System.nanoTime();
+        // counted and sorted without holding the lock, writes keep updating the old aggregates meanwhile
+        CustomerCounts counts = source.countCustomers();
+        NavigableMap<Integer, Long> byAgeBucket = new TreeMap<>();
+        counts.byAge().forEach((age, customers) -> byAgeBucket.merge(ageBucket(age), customers, Long::sum));
+        Map<String, Long> byDomain = new HashMap<>(counts.byEmailDomain());
+        NavigableSet<EmailDomainCount> ranking = new TreeSet<>(DOMAIN_RANKING);
+        byDomain.forEach((domain, customers) -> ranking.add(new EmailDomainCount(domain, customers)));
+        long total = byAgeBucket.values().stream().mapToLong(Long::longValue).sum();
+
+        lock.lock();
+        try {
+            // the first reconciliation only loads the aggregates, there is nothing to compare with
+            if (reconciledAt != null) {
+                drift.set(difference(countsByAgeBucket, byAgeBucket) + difference(countsByDomain, byDomain));
+            }
+            count = total;
+            countsByAgeBucket = byAgeBucket;
+            countsByDomain = byDomain;
+            domainRanking = ranking;
+            reconciledAt = Instant.now();
+        } finally {
+            lock.unlock();
+        }
+        log.info("Customer stats reconciled in {} ms, {} customers, drift {}",
+                (System.nanoTime() - start) / 1_000_000, total, drift.get());
+    }
+
+    private static <K> long difference(Map<K, Long> current, Map<K, Long> actual) {
+        Set<K> keys = new HashSet<>(current.keySet());
+        keys.addAll(actual.keySet());
+        return keys.stream()
+                .mapToLong(key -> Math.abs(current.getOrDefault(key, 0L) - actual.getOrDefault(key, 0L)))
+                .sum();
+    }
+}
@@ -0,0 +1,10 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "customer.bulk")
+public record CustomerBulkProperties(
+        @DefaultValue("1000") int chunkSize
+) {
+}
@@ -0,0 +1,137 @@
+package com.amigoscode.customer;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache of customers by id in front of another {@link CustomerDAO}.
+ * Writes go to the delegate first and then invalidate the cached entry. A load that
+ * is still in flight when the entry is invalidated is discarded as well, so a reader
+ * never sees a customer older than the last write made through this node.
+ * <p>
+ * Loads run on the calling thread but outside the cache's internal lock, so a virtual
+ * thread waiting on the database does not pin its carrier.
+ */
+public class CustomerCachingDataAccessService implements CustomerDAO {
+
+    static final String CACHE_NAME = "customers";
+
+    private final CustomerDAO delegate;
+    private final AsyncCache<Long, Customer> cache;
+
+    public CustomerCachingDataAccessService(CustomerDAO delegate,
+                                            CustomerCacheProperties properties,
+                                            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long after, int limit) {
+        return delegate.selectCustomers(after, limit);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        CompletableFuture<Customer> load = new CompletableFuture<>();
+        CompletableFuture<Customer> cached = cache.get(id, (key, executor) -> load);
+        if (cached == load) {
+            try {
+                // absent customers are not cached, a future completed with null leaves no entry behind
+                load.complete(delegate.selectCustomerById(id).orElse(null));
+            } catch (RuntimeException e) {
+                load.completeExceptionally(e);
+            }
+        }
+        try {
+            return Optional.ofNullable(cached.join());
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, int limit) {
+        return delegate.searchCustomers(search, limit);
+    }
+
+    @Override
+    public List<CustomerMatch> findSimilarCustomers(String text, int limit) {
+        return delegate.findSimilarCustomers(text, limit);
+    }
+
+    @Override
+    public CustomerCounts countCustomers() {
+        return delegate.countCustomers();
+    }
+
+    @Override
+    public boolean insertCustomer(Customer customer) {
+        return delegate.insertCustomer(customer);
+    }
+
+    @Override
+    public int insertCustomers(List<Customer> customers) {
+        return delegate.insertCustomers(customers);
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return delegate.existsPersonWithEmail(email);
+    }
+
+    @Override
+    public boolean existsPersonWithId(Long id) {
+        CompletableFuture<Customer> cached = cache.getIfPresent(id);
+        boolean loaded = cached != null && cached.state() == Future.State.SUCCESS && cached.resultNow() != null;
+        return loaded || delegate.existsPersonWithId(id);
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerById(Long id) {
+        try {
+            return delegate.deleteCustomerById(id);
+        } finally {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    @Override
+    public Optional<Customer> updateCustomer(Customer customerToUpdate) {
+        try {
+            return delegate.updateCustomer(customerToUpdate);
+        } finally {
+            cache.synchronous().invalidate(customerToUpdate.getId());
+        }
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        delegate.streamAllCustomers(consumer);
+    }
+
+    @Override
+    public CustomerCounts importCustomers(Iterator<Customer> customers) {
+        return delegate.importCustomers(customers);
+    }
+}
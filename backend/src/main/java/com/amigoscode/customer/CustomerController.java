@@ -1,24 +1,74 @@
 package com.amigoscode.customer;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
+@Profile("!reactive")
 @RequestMapping("api/v1/customers")
 public class CustomerController {
 
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
     private final CustomerService customerService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public List<Customer> getCustomers() {
-        return customerService.getAllCustomers();
+    public CustomerPage getCustomers(@RequestParam(value = "after", required = false) Long after,
+                                     @RequestParam(value = "limit", required = false) Integer limit) {
+        return customerService.getCustomers(after, limit);
+    }
+
+    @GetMapping("/search")
+    public CustomerSearchPage searchCustomers(CustomerSearchRequest request) {
+        return customerService.searchCustomers(request);
+    }
+
+    @GetMapping("/search/similar")
+    public List<CustomerMatch> findSimilarCustomers(@RequestParam("q") String query,
+                                                    @RequestParam(value = "limit", required = false) Integer limit) {
+        return customerService.findSimilarCustomers(query, limit);
+    }
+
+    @GetMapping("/stats")
+    public CustomerStats getStats() {
+        return customerService.getStats();
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCustomers() {
+        ObjectWriter writer = objectMapper.writerFor(Customer.class);
+        StreamingResponseBody body = outputStream -> customerService.exportCustomers(customer -> {
+            try {
+                outputStream.write(writer.writeValueAsBytes(customer));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @GetMapping("/{id}")
-    public Customer getCustomer(@PathVariable("id") Integer id) {
+    public Customer getCustomer(@PathVariable("id") Long id) {
         return customerService.getCustomer(id);
     }
 
@@ -27,13 +77,40 @@ public class CustomerController {
         customerService.addCustomer(request);
     }
 
+    @PostMapping("/bulk")
+    public List<CustomerRegistrationResult> registerCustomers(@RequestBody List<CustomerRegistrationRequest> requests) {
+        return customerService.addCustomers(requests);
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public CustomerImport importCustomersFromCsv(InputStream inputStream) throws IOException {
+        MappingIterator<CustomerRegistrationRequest> requests = CSV_MAPPER
+                .readerFor(CustomerRegistrationRequest.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .readValues(inputStream);
+        return customerService.importCustomers(requests);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public CustomerImport importCustomersFromNdjson(InputStream inputStream) throws IOException {
+        MappingIterator<CustomerRegistrationRequest> requests = objectMapper
+                .readerFor(CustomerRegistrationRequest.class)
+                .readValues(inputStream);
+        return customerService.importCustomers(requests);
+    }
+
+    @GetMapping("/imports")
+    public Collection<CustomerImport> getRunningImports() {
+        return customerService.getRunningImports();
+    }
+
     @DeleteMapping("/{id}")
-    public void deleteCustomer(@PathVariable("id") Integer id) {
+    public void deleteCustomer(@PathVariable("id") Long id) {
         customerService.deleteCustomerById(id);
     }
 
     @PutMapping("/{id}")
-    public void updateCustomer(@PathVariable("id") Integer id, @RequestBody CustomerUpdateRequest request) {
+    public void updateCustomer(@PathVariable("id") Long id, @RequestBody CustomerUpdateRequest request) {
         customerService.updateCustomer(id, request);
     }
 
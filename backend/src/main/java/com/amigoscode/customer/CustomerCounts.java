@@ -0,0 +1,17 @@
+package com.amigoscode.customer;
+
+import java.util.Map;
+
+/**
+ * Customers counted by age and by email domain, the domain lower-cased as by
+ * {@link CustomerSearch#emailDomain(String)}.
+ */
+public record CustomerCounts(
+        Map<Integer, Long> byAge,
+        Map<String, Long> byEmailDomain
+) {
+
+    public long total() {
+        return byAge.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -1,16 +1,76 @@
 package com.amigoscode.customer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CustomerDAO {
 
+    int STREAM_PAGE_SIZE = 1000;
+
     List<Customer> selectAllCustomers();
-    Optional<Customer> selectCustomerById(Integer id);
-    void insertCustomer(Customer customer);
+    List<Customer> selectCustomers(Long after, int limit);
+    Optional<Customer> selectCustomerById(Long id);
+    List<Customer> searchCustomers(CustomerSearch search, int limit);
+    List<CustomerMatch> findSimilarCustomers(String text, int limit);
+    CustomerCounts countCustomers();
+    boolean insertCustomer(Customer customer);
+    int insertCustomers(List<Customer> customers);
     boolean existsPersonWithEmail(String email);
-    boolean existsPersonWithId(Integer id);
-    void deleteCustomerById(Integer id);
-    void updateCustomer(Customer customerToUpdate);
+    boolean existsPersonWithId(Long id);
+    /**
+     * @return the customer as it was deleted, empty if there was none with this id
+     */
+    Optional<Customer> deleteCustomerById(Long id);
+
+    /**
+     * Sets the non-null fields of {@code customerToUpdate} on the customer with its id.
+     *
+     * @return the customer as it was before the update, empty if nothing was updated
+     */
+    Optional<Customer> updateCustomer(Customer customerToUpdate);
+
+    default void streamAllCustomers(Consumer<Customer> consumer) {
+        List<Customer> page = selectCustomers(0L, STREAM_PAGE_SIZE);
+        while (!page.isEmpty()) {
+            page.forEach(consumer);
+            page = selectCustomers(page.get(page.size() - 1).getId(), STREAM_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * @return the customers the import inserted, counted like {@link #countCustomers()}
+     */
+    default CustomerCounts importCustomers(Iterator<Customer> customers) {
+        Map<Integer, Long> byAge = new HashMap<>();
+        Map<String, Long> byEmailDomain = new HashMap<>();
+        List<Customer> chunk = new ArrayList<>(STREAM_PAGE_SIZE);
+        while (customers.hasNext()) {
+            chunk.add(customers.next());
+            if (chunk.size() == STREAM_PAGE_SIZE) {
+                insertChunk(chunk, byAge, byEmailDomain);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, byAge, byEmailDomain);
+        }
+        return new CustomerCounts(byAge, byEmailDomain);
+    }
+
+    private void insertChunk(List<Customer> chunk, Map<Integer, Long> byAge, Map<String, Long> byEmailDomain) {
+        insertCustomers(chunk);
+        // every backend sets the id of the customers it inserted, and only theirs
+        chunk.stream()
+                .filter(customer -> customer.getId() != null)
+                .forEach(customer -> {
+                    byAge.merge(customer.getAge(), 1L, Long::sum);
+                    byEmailDomain.merge(CustomerSearch.emailDomain(customer.getEmail()), 1L, Long::sum);
+                });
+        chunk.clear();
+    }
 
 }
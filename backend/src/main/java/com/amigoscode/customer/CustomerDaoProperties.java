@@ -0,0 +1,14 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Qualifiers of the {@link CustomerDAO} implementations that serve reads and writes.
+ */
+@ConfigurationProperties(prefix = "customer.dao")
+public record CustomerDaoProperties(
+        @DefaultValue("jdbc") String reads,
+        @DefaultValue("jdbc") String writes
+) {
+}
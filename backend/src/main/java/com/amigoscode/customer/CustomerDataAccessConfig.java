@@ -0,0 +1,113 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.datasource.ReplicaProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.util.Arrays;
+import java.util.List;
+
+// the reactive profile has a DAO of its own, see CustomerR2dbcDataAccessService
+@Configuration
+@Profile("!reactive")
+public class CustomerDataAccessConfig {
+
+    private static final String LIST_BACKEND = "list";
+
+    @Bean
+    @ConditionalOnProperty(prefix = "customer.email-filter", name = "enabled", matchIfMissing = true)
+    public CustomerEmailIndex customerEmailIndex(ListableBeanFactory beanFactory,
+                                                 CustomerDaoProperties daoProperties,
+                                                 CustomerEmailFilterProperties properties,
+                                                 MeterRegistry meterRegistry) {
+        // the filter must know every email, so it is built from the backend that owns the writes
+        CustomerDAO source = backend(beanFactory, "writes", daoProperties.writes());
+        return new CustomerEmailIndex(source, properties, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "customer.stats", name = "enabled", matchIfMissing = true)
+    public CustomerAggregates customerAggregates(ListableBeanFactory beanFactory,
+                                                 CustomerDaoProperties daoProperties,
+                                                 CustomerStatsProperties properties,
+                                                 MeterRegistry meterRegistry) {
+        // reconciled with the backend that owns the writes, a replica may not have them yet
+        CustomerDAO source = backend(beanFactory, "writes", daoProperties.writes());
+        return new CustomerAggregates(source, properties, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public CustomerDAO customerDAO(ListableBeanFactory beanFactory,
+                                   CustomerDaoProperties daoProperties,
+                                   ReplicaProperties replicaProperties,
+                                   ObjectProvider<CustomerEmailIndex> emailIndex,
+                                   CustomerCacheProperties cacheProperties,
+                                   ObjectProvider<CustomerAggregates> aggregates,
+                                   MeterRegistry meterRegistry,
+                                   Tracer tracer) {
+        requireSharedData(daoProperties);
+        CustomerDAO customerDAO = new CustomerRoutingDataAccessService(
+                daoProperties.reads(), backend(beanFactory, "reads", daoProperties.reads()),
+                daoProperties.writes(), backend(beanFactory, "writes", daoProperties.writes()),
+                meterRegistry,
+                tracer
+        );
+        if (replicaProperties.enabled()) {
+            customerDAO = new CustomerReplicaDataAccessService(
+                    customerDAO,
+                    replicaProperties.readYourWritesWindow(),
+                    replicaProperties.maximumStickyKeys()
+            );
+        }
+        CustomerEmailIndex index = emailIndex.getIfAvailable();
+        if (index != null) {
+            customerDAO = new CustomerEmailFilterDataAccessService(customerDAO, index);
+        }
+        if (cacheProperties.enabled()) {
+            customerDAO = new CustomerCachingDataAccessService(customerDAO, cacheProperties, meterRegistry);
+        }
+        CustomerAggregates customerAggregates = aggregates.getIfAvailable();
+        if (customerAggregates != null) {
+            // outermost, so that the rows it reads before updates and deletes come from the cache
+            customerDAO = new CustomerStatsDataAccessService(customerDAO, customerAggregates);
+        }
+        return customerDAO;
+    }
+
+    /**
+     * Reads only see the writes if both backends work on the same data. The SQL backends
+     * share the database, the list backend keeps its customers to itself.
+     */
+    static void requireSharedData(CustomerDaoProperties daoProperties) {
+        String reads = daoProperties.reads();
+        String writes = daoProperties.writes();
+        if (!reads.equals(writes) && (reads.equals(LIST_BACKEND) || writes.equals(LIST_BACKEND))) {
+            throw new IllegalStateException(
+                    "customer.dao.reads [%s] would not see the customers written by customer.dao.writes [%s], the %s backend keeps them in memory"
+                            .formatted(reads, writes, LIST_BACKEND)
+            );
+        }
+    }
+
+    static CustomerDAO backend(ListableBeanFactory beanFactory, String route, String name) {
+        List<String> backends = Arrays.stream(beanFactory.getBeanNamesForType(CustomerDAO.class))
+                .filter(candidate -> !candidate.equals("customerDAO"))
+                .toList();
+        if (!backends.contains(name)) {
+            throw new IllegalStateException(
+                    "customer.dao.%s [%s] is not a CustomerDAO backend, expected one of %s"
+                            .formatted(route, name, backends)
+            );
+        }
+        return beanFactory.getBean(name, CustomerDAO.class);
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.amigoscode.customer;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Answers {@link #existsPersonWithEmail(String)} from a {@link CustomerEmailIndex} when the
+ * email is definitely unknown, and only asks the delegate when the filter says "maybe".
+ */
+public class CustomerEmailFilterDataAccessService implements CustomerDAO {
+
+    private final CustomerDAO delegate;
+    private final CustomerEmailIndex emailIndex;
+
+    public CustomerEmailFilterDataAccessService(CustomerDAO delegate, CustomerEmailIndex emailIndex) {
+        this.delegate = delegate;
+        this.emailIndex = emailIndex;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long after, int limit) {
+        return delegate.selectCustomers(after, limit);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        return delegate.selectCustomerById(id);
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, int limit) {
+        return delegate.searchCustomers(search, limit);
+    }
+
+    @Override
+    public List<CustomerMatch> findSimilarCustomers(String text, int limit) {
+        return delegate.findSimilarCustomers(text, limit);
+    }
+
+    @Override
+    public CustomerCounts countCustomers() {
+        return delegate.countCustomers();
+    }
+
+    @Override
+    public boolean insertCustomer(Customer customer) {
+        // a duplicate also proves the email exists, so it is added either way
+        boolean inserted = delegate.insertCustomer(customer);
+        emailIndex.add(customer.getEmail());
+        return inserted;
+    }
+
+    @Override
+    public int insertCustomers(List<Customer> customers) {
+        int inserted = delegate.insertCustomers(customers);
+        customers.forEach(customer -> emailIndex.add(customer.getEmail()));
+        return inserted;
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        if (!emailIndex.mightContain(email)) {
+            return false;
+        }
+        boolean exists = delegate.existsPersonWithEmail(email);
+        emailIndex.recordLookup(exists);
+        return exists;
+    }
+
+    @Override
+    public boolean existsPersonWithId(Long id) {
+        return delegate.existsPersonWithId(id);
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerById(Long id) {
+        // the email stays in the filter until the next rebuild
+        return delegate.deleteCustomerById(id);
+    }
+
+    @Override
+    public Optional<Customer> updateCustomer(Customer customerToUpdate) {
+        Optional<Customer> previous = delegate.updateCustomer(customerToUpdate);
+        if (customerToUpdate.getEmail() != null) {
+            emailIndex.add(customerToUpdate.getEmail());
+        }
+        return previous;
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        delegate.streamAllCustomers(consumer);
+    }
+
+    @Override
+    public CustomerCounts importCustomers(Iterator<Customer> customers) {
+        // rows are added as they are read, before they are committed, so a rebuild
+        // starting in the meantime could scan without them and has to be repeated
+        long generation = emailIndex.generation();
+        CustomerCounts inserted = delegate.importCustomers(new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return customers.hasNext();
+            }
+
+            @Override
+            public Customer next() {
+                Customer customer = customers.next();
+                emailIndex.add(customer.getEmail());
+                return customer;
+            }
+        });
+        if (emailIndex.generation() != generation) {
+            emailIndex.rebuild();
+        }
+        return inserted;
+    }
+}
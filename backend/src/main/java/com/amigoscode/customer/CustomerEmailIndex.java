@@ -0,0 +1,135 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps an {@link EmailBloomFilter} of every customer email. The filter is built from a
+ * streaming scan of the source DAO and rebuilt periodically, since emails that are deleted
+ * or changed cannot be removed from a Bloom filter and only raise the false positive rate.
+ */
+@Slf4j
+public class CustomerEmailIndex {
+
+    private final CustomerDAO source;
+    private final CustomerEmailFilterProperties properties;
+    private final Counter filteredLookups;
+    private final Counter presentLookups;
+    private final Counter falsePositiveLookups;
+
+    private volatile EmailBloomFilter filter;
+    private volatile EmailBloomFilter building;
+    private final AtomicLong generation = new AtomicLong();
+    // not synchronized, a virtual thread blocked on the scan would pin its carrier
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    public CustomerEmailIndex(CustomerDAO source,
+                              CustomerEmailFilterProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.source = source;
+        this.properties = properties;
+        this.filteredLookups = lookupCounter(meterRegistry, "absent");
+        this.presentLookups = lookupCounter(meterRegistry, "present");
+        this.falsePositiveLookups = lookupCounter(meterRegistry, "false_positive");
+        Gauge.builder("customer.email.filter.memory", this, index -> index.filter == null ? 0 : index.filter.memoryBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("customer.email.filter.expected.fpp",
+                        this, index -> index.filter == null ? 1 : index.filter.expectedFalsePositiveProbability())
+                .register(meterRegistry);
+        Gauge.builder("customer.email.filter.observed.fpp", this, CustomerEmailIndex::observedFalsePositiveRate)
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("customer.email.filter.lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${customer.email-filter.rebuild-interval:PT6H}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuildFilter();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuildFilter() {
+        EmailBloomFilter fresh = new EmailBloomFilter(
+                properties.expectedInsertions(),
+                properties.falsePositiveProbability()
+        );
+        // emails written while the scan runs go to both filters
+        building = fresh;
+        generation.incrementAndGet();
+        try {
+            long start = System.nanoTime();
+            source.streamAllCustomers(customer -> fresh.put(customer.getEmail()));
+            filter = fresh;
+            log.info("Email filter rebuilt in {} ms, {} bytes",
+                    (System.nanoTime() - start) / 1_000_000, fresh.memoryBytes());
+        } finally {
+            building = null;
+        }
+    }
+
+    /**
+     * @return false only if no customer has the email, true if it has to be checked
+     */
+    public boolean mightContain(String email) {
+        EmailBloomFilter current = filter;
+        if (current == null || current.mightContain(email)) {
+            return true;
+        }
+        filteredLookups.increment();
+        return false;
+    }
+
+    public void recordLookup(boolean exists) {
+        if (filter != null) {
+            (exists ? presentLookups : falsePositiveLookups).increment();
+        }
+    }
+
+    /**
+     * Must be called after the email has been written, otherwise a rebuild that is
+     * scanning at the same time could miss it.
+     */
+    public void add(String email) {
+        EmailBloomFilter current = filter;
+        if (current != null) {
+            current.put(email);
+        }
+        EmailBloomFilter next = building;
+        if (next != null) {
+            next.put(email);
+        }
+        // a rebuild whose scan missed the write may have published its filter after filter was
+        // read above and cleared building before it was read, so neither put reached it
+        EmailBloomFilter published = filter;
+        if (published != current) {
+            published.put(email);
+        }
+    }
+
+    /**
+     * Incremented whenever a rebuild starts.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    private double observedFalsePositiveRate() {
+        double negatives = filteredLookups.count() + falsePositiveLookups.count();
+        return negatives == 0 ? 0 : falsePositiveLookups.count() / negatives;
+    }
+}
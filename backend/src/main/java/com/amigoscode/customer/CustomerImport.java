@@ -0,0 +1,62 @@
+package com.amigoscode.customer;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CustomerImport {
+
+    public enum Phase {
+        COPYING,
+        MERGING,
+        DONE,
+        FAILED
+    }
+
+    private final UUID id = UUID.randomUUID();
+    private final Instant startedAt = Instant.now();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private volatile long rowsInserted;
+    private volatile Phase phase = Phase.COPYING;
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getRowsInserted() {
+        return rowsInserted;
+    }
+
+    public long getRowsSkipped() {
+        return phase == Phase.DONE ? getRowsRead() - rowsInserted : 0;
+    }
+
+    long rowRead() {
+        return rowsRead.incrementAndGet();
+    }
+
+    void merging() {
+        phase = Phase.MERGING;
+    }
+
+    void done(long rowsInserted) {
+        this.rowsInserted = rowsInserted;
+        phase = Phase.DONE;
+    }
+
+    void failed() {
+        phase = Phase.FAILED;
+    }
+}
@@ -1,16 +1,39 @@
 package com.amigoscode.customer;
 
 import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository("jdbc")
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class CustomerJdbcDataAccessService implements CustomerDAO {
 
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    // matches the unique index on lower(email), which also holds email so no row is read
+    static final String EMAIL_EXISTS_SQL = "SELECT EXISTS (SELECT 1 FROM customer WHERE lower(email) = lower(?))";
+
     private final JdbcTemplate jdbcTemplate;
     private final CustomerRowMapper customerRowMapper;
 
@@ -23,7 +46,34 @@ public class CustomerJdbcDataAccessService implements CustomerDAO {
     }
 
     @Override
-    public Optional<Customer> selectCustomerById(Integer id) {
+    public List<Customer> selectCustomers(Long after, int limit) {
+        String sql = """
+                SELECT id, name, email, age FROM customer
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?;
+                """;
+        return jdbcTemplate.query(sql, customerRowMapper, after, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)     // PostgreSQL only honours the fetch size outside of autocommit
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        String sql = """
+                SELECT id, name, email, age FROM customer;
+                """;
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement ps = connection.prepareStatement(sql);
+                    ps.setFetchSize(STREAM_PAGE_SIZE);
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> consumer.accept(customerRowMapper.mapRow(rs, rs.getRow()))
+        );
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
         String sql = """
                 SELECT id, name, email, age FROM customer
                 WHERE id = ?;
@@ -34,32 +84,236 @@ public class CustomerJdbcDataAccessService implements CustomerDAO {
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
+    public List<Customer> searchCustomers(CustomerSearch search, int limit) {
+        // every filter has its own index, see V5__Customer_Search_Indexes.sql
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (search.namePrefix() != null) {
+            conditions.add("lower(name) LIKE ?");
+            args.add(search.namePattern());
+        }
+        if (search.emailDomain() != null) {
+            conditions.add("split_part(lower(email), '@', 2) = ?");
+            args.add(search.emailDomain());
+        }
+        if (search.minAge() != null) {
+            conditions.add("age >= ?");
+            args.add(search.minAge());
+        }
+        if (search.maxAge() != null) {
+            conditions.add("age <= ?");
+            args.add(search.maxAge());
+        }
+
+        String direction = search.descending() ? "DESC" : "ASC";
+        String comparison = search.descending() ? "<" : ">";
+        String orderBy = switch (search.sort()) {
+            case ID -> "id " + direction;
+            case NAME -> "name %s, id %s".formatted(direction, direction);
+            case AGE -> "age %s, id %s".formatted(direction, direction);
+        };
+        Customer after = search.after();
+        if (after != null) {
+            // a row comparison lets the (key, id) index start right after the previous page
+            switch (search.sort()) {
+                case ID -> conditions.add("id %s ?".formatted(comparison));
+                case NAME -> {
+                    conditions.add("(name, id) %s (?, ?)".formatted(comparison));
+                    args.add(after.getName());
+                }
+                case AGE -> {
+                    conditions.add("(age, id) %s (?, ?)".formatted(comparison));
+                    args.add(after.getAge());
+                }
+            }
+            args.add(after.getId());
+        }
+        args.add(limit);
+
+        String sql = """
+                SELECT id, name, email, age FROM customer
+                %s
+                ORDER BY %s
+                LIMIT ?
+                """.formatted(
+                conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions),
+                orderBy
+        );
+        return jdbcTemplate.query(sql, customerRowMapper, args.toArray());
+    }
+
+    @Override
+    public List<CustomerMatch> findSimilarCustomers(String text, int limit) {
+        // % is answered by the trigram indexes, see V6__Customer_Trigram_Indexes.sql
+        String sql = """
+                SELECT id, name, email, age, greatest(similarity(name, ?), similarity(email, ?)) AS similarity
+                FROM customer
+                WHERE name % ? OR email % ?
+                ORDER BY similarity DESC, id
+                LIMIT ?
+                """;
+        return jdbcTemplate.query(
+                sql,
+                (rs, rowNum) -> new CustomerMatch(customerRowMapper.mapRow(rs, rowNum), rs.getFloat("similarity")),
+                text, text, text, text, limit
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)     // both counts from one snapshot
+    public CustomerCounts countCustomers() {
+        // a scan of the table or its indexes, only run when CustomerAggregates reconciles
+        Map<Integer, Long> byAge = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT age, count(*) FROM customer GROUP BY age",
+                (RowCallbackHandler) rs -> byAge.put(rs.getInt(1), rs.getLong(2))
+        );
+        Map<String, Long> byEmailDomain = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT split_part(lower(email), '@', 2), count(*) FROM customer GROUP BY 1",
+                (RowCallbackHandler) rs -> byEmailDomain.put(rs.getString(1), rs.getLong(2))
+        );
+        return new CustomerCounts(byAge, byEmailDomain);
+    }
+
+    @Override
+    public boolean insertCustomer(Customer customer) {
         String sql = """
                 INSERT INTO customer(name, email, age)
-                VALUES (?, ?, ?);
+                VALUES (?, ?, ?)
+                ON CONFLICT ((lower(email))) DO NOTHING
+                RETURNING id;
                 """;
-        jdbcTemplate.update(sql,
+        List<Long> ids = jdbcTemplate.queryForList(sql, Long.class,
                 customer.getName(),
                 customer.getEmail(),
                 customer.getAge()
         );
+        if (ids.isEmpty()) {
+            return false;
+        }
+
+        customer.setId(ids.get(0));
+        return true;
     }
 
     @Override
-    public boolean existsPersonWithEmail(String email) {
-        String sql = "SELECT count(email) FROM customer WHERE email = ?";
-        Integer count = jdbcTemplate.queryForObject(
-                sql,
-                (rs, rowNum) -> rs.getInt(1),
-                email
+    public int insertCustomers(List<Customer> customers) {
+        // one statement per chunk; RETURNING tells exactly which rows were inserted
+        String sql = """
+                INSERT INTO customer(name, email, age)
+                SELECT * FROM unnest(?::text[], ?::text[], ?::int[])
+                ON CONFLICT ((lower(email))) DO NOTHING
+                RETURNING id, email;
+                """;
+        // keyed like the lower(email) index, the first of two emails differing in case is the one inserted
+        Map<String, Customer> customersByEmail = new HashMap<>();
+        // a row without an email is left to the NOT NULL constraint, like a single insert
+        customers.stream()
+                .filter(customer -> customer.getEmail() != null)
+                .forEach(customer -> customersByEmail.putIfAbsent(customer.getEmail().toLowerCase(Locale.ROOT), customer));
+
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement ps = connection.prepareStatement(sql);
+                    ps.setArray(1, connection.createArrayOf("text",
+                            customers.stream().map(Customer::getName).toArray()));
+                    ps.setArray(2, connection.createArrayOf("text",
+                            customers.stream().map(Customer::getEmail).toArray()));
+                    ps.setArray(3, connection.createArrayOf("int4",
+                            customers.stream().map(Customer::getAge).toArray()));
+                    return ps;
+                },
+                (RowCallbackHandler) rs -> customersByEmail
+                        .get(rs.getString("email").toLowerCase(Locale.ROOT))
+                        .setId(rs.getLong("id"))
         );
+        return (int) customers.stream()
+                .filter(customer -> customer.getId() != null)
+                .count();
+    }
 
-        return count > 0;
+    @Override
+    @Transactional
+    public CustomerCounts importCustomers(Iterator<Customer> customers) {
+        // rows are copied into a staging table first so that duplicates can be skipped on merge
+        return jdbcTemplate.execute((ConnectionCallback<CustomerCounts>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("""
+                        CREATE TEMP TABLE customer_import (
+                            line  BIGSERIAL,
+                            name  TEXT,
+                            email TEXT,
+                            age   INT
+                        ) ON COMMIT DROP;
+                        """);
+            }
+
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn("""
+                    COPY customer_import (name, email, age) FROM STDIN WITH (FORMAT csv);
+                    """);
+            try {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(COPY_BUFFER_SIZE);
+                while (customers.hasNext()) {
+                    buffer.writeBytes(toCsvLine(customers.next()));
+                    if (buffer.size() >= COPY_BUFFER_SIZE) {
+                        copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+                        buffer.reset();
+                    }
+                }
+                copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+
+            // the merge reports what it inserted, grouped, rather than the rows it skipped
+            Map<Integer, Long> byAge = new HashMap<>();
+            Map<String, Long> byEmailDomain = new HashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("""
+                         WITH inserted AS (
+                             INSERT INTO customer(name, email, age)
+                             SELECT name, email, age FROM (
+                                 SELECT DISTINCT ON (lower(email)) line, name, email, age
+                                 FROM customer_import
+                                 ORDER BY lower(email), line
+                             ) first_rows
+                             ORDER BY line
+                             ON CONFLICT ((lower(email))) DO NOTHING
+                             RETURNING age, split_part(lower(email), '@', 2) AS domain
+                         )
+                         SELECT age, domain, count(*) FROM inserted GROUP BY age, domain;
+                         """)) {
+                while (rs.next()) {
+                    byAge.merge(rs.getInt(1), rs.getLong(3), Long::sum);
+                    byEmailDomain.merge(rs.getString(2), rs.getLong(3), Long::sum);
+                }
+            }
+            return new CustomerCounts(byAge, byEmailDomain);
+        });
+    }
+
+    private static byte[] toCsvLine(Customer customer) {
+        return (toCsvValue(customer.getName()) + ","
+                + toCsvValue(customer.getEmail()) + ","
+                + (customer.getAge() == null ? "" : customer.getAge()) + "\n"
+        ).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String toCsvValue(String value) {
+        return value == null ? "" : "\"" + value.replace("\"", "\"\"") + "\"";
     }
 
     @Override
-    public boolean existsPersonWithId(Integer id) {
+    public boolean existsPersonWithEmail(String email) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EMAIL_EXISTS_SQL, Boolean.class, email));
+    }
+
+    @Override
+    public boolean existsPersonWithId(Long id) {
         String sql = "SELECT count(id) FROM customer WHERE id = ?";
         Integer count = jdbcTemplate.queryForObject(
                 sql,
@@ -71,42 +325,46 @@ public class CustomerJdbcDataAccessService implements CustomerDAO {
     }
 
     @Override
-    public void deleteCustomerById(Integer id) {
-        String sql = "DELETE FROM customer WHERE id = ?";
-        jdbcTemplate.update(sql, id);
+    public Optional<Customer> deleteCustomerById(Long id) {
+        String sql = """
+                DELETE FROM customer WHERE id = ?
+                RETURNING id, name, email, age;
+                """;
+        return jdbcTemplate.query(sql, customerRowMapper, id)
+                .stream()
+                .findFirst();
     }
 
     @Override
-    public void updateCustomer(Customer customerToUpdate) {
+    public Optional<Customer> updateCustomer(Customer customerToUpdate) {
+        List<String> assignments = new ArrayList<>(3);
+        List<Object> args = new ArrayList<>(4);
         if (customerToUpdate.getName() != null) {
-            String sql = """
-                    UPDATE customer SET name = ?
-                    WHERE id = ?;
-                    """;
-            jdbcTemplate.update(sql,
-                    customerToUpdate.getName(),
-                    customerToUpdate.getId()
-            );
+            assignments.add("name = ?");
+            args.add(customerToUpdate.getName());
         }
         if (customerToUpdate.getEmail() != null) {
-            String sql = """
-                    UPDATE customer SET email = ?
-                    WHERE id = ?;
-                    """;
-            jdbcTemplate.update(sql,
-                    customerToUpdate.getEmail(),
-                    customerToUpdate.getId()
-            );
+            assignments.add("email = ?");
+            args.add(customerToUpdate.getEmail());
         }
         if (customerToUpdate.getAge() != null) {
-            String sql = """
-                    UPDATE customer SET age = ?
-                    WHERE id = ?;
-                    """;
-            jdbcTemplate.update(sql,
-                    customerToUpdate.getAge(),
-                    customerToUpdate.getId()
-            );
+            assignments.add("age = ?");
+            args.add(customerToUpdate.getAge());
+        }
+        if (assignments.isEmpty()) {
+            return Optional.empty();
         }
+        args.add(customerToUpdate.getId());
+
+        // RETURNING only sees the new row, the old one comes from the locked self-join
+        String sql = """
+                UPDATE customer SET %s
+                FROM (SELECT id, name, email, age FROM customer WHERE id = ? FOR UPDATE) previous
+                WHERE customer.id = previous.id
+                RETURNING previous.id, previous.name, previous.email, previous.age;
+                """.formatted(String.join(", ", assignments));
+        return jdbcTemplate.query(sql, customerRowMapper, args.toArray())
+                .stream()
+                .findFirst();
     }
 }
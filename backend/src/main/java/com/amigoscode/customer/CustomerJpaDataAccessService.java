@@ -1,12 +1,22 @@
 package com.amigoscode.customer;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Repository("jpa")
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class CustomerJpaDataAccessService implements CustomerDAO {
 
@@ -18,13 +28,69 @@ public class CustomerJpaDataAccessService implements CustomerDAO {
     }
 
     @Override
-    public Optional<Customer> selectCustomerById(Integer id) {
+    public List<Customer> selectCustomers(Long after, int limit) {
+        return customerRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.ofSize(limit));
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
         return customerRepository.findById(id);
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
-        customerRepository.save(customer);
+    public List<Customer> searchCustomers(CustomerSearch search, int limit) {
+        return customerRepository.search(search, limit);
+    }
+
+    @Override
+    public List<CustomerMatch> findSimilarCustomers(String text, int limit) {
+        return customerRepository.findSimilar(text, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public CustomerCounts countCustomers() {
+        return new CustomerCounts(
+                customerRepository.countByAge().stream()
+                        .collect(Collectors.toMap(row -> (Integer) row[0], row -> (Long) row[1])),
+                customerRepository.countByEmailDomain().stream()
+                        .collect(Collectors.toMap(row -> (String) row[0], row -> (Long) row[1]))
+        );
+    }
+
+    @Override
+    public boolean insertCustomer(Customer customer) {
+        try {
+            customerRepository.saveAndFlush(customer);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException cve
+                    && Customer.EMAIL_UNIQUE_CONSTRAINT.equals(cve.getConstraintName())) {
+                customer.setId(null);
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public int insertCustomers(List<Customer> customers) {
+        Set<String> takenEmails = customerRepository.findLowerCaseEmailsIn(
+                customers.stream().map(customer -> customer.getEmail().toLowerCase(Locale.ROOT)).toList()
+        );
+        List<Customer> newCustomers = customers.stream()
+                .filter(customer -> !takenEmails.contains(customer.getEmail().toLowerCase(Locale.ROOT)))
+                .toList();
+        try {
+            customerRepository.saveAll(newCustomers);
+            return newCustomers.size();
+        } catch (DataIntegrityViolationException e) {
+            // an email was taken concurrently, fall back to row by row inserts for this chunk
+            newCustomers.forEach(customer -> customer.setId(null));
+            return (int) newCustomers.stream()
+                    .filter(this::insertCustomer)
+                    .count();
+        }
     }
 
     @Override
@@ -33,17 +99,34 @@ public class CustomerJpaDataAccessService implements CustomerDAO {
     }
 
     @Override
-    public boolean existsPersonWithId(Integer id) {
+    public boolean existsPersonWithId(Long id) {
         return customerRepository.existsCustomerById(id);
     }
 
     @Override
-    public void deleteCustomerById(Integer id) {
-        customerRepository.deleteById(id);
+    @Transactional
+    public Optional<Customer> deleteCustomerById(Long id) {
+        Optional<Customer> customer = customerRepository.findForUpdateById(id);
+        customer.ifPresent(locked -> customerRepository.deleteCustomerById(id));
+        return customer;
     }
 
     @Override
-    public void updateCustomer(Customer customerToUpdate) {
-        customerRepository.save(customerToUpdate);
+    @Transactional
+    public Optional<Customer> updateCustomer(Customer customerToUpdate) {
+        return customerRepository.findForUpdateById(customerToUpdate.getId()).map(customer -> {
+            Customer previous = new Customer(customer.getId(), customer.getName(), customer.getEmail(), customer.getAge());
+            if (customerToUpdate.getName() != null) {
+                customer.setName(customerToUpdate.getName());
+            }
+            if (customerToUpdate.getEmail() != null) {
+                customer.setEmail(customerToUpdate.getEmail());
+            }
+            if (customerToUpdate.getAge() != null) {
+                customer.setAge(customerToUpdate.getAge());
+            }
+            customerRepository.save(customer);
+            return previous;
+        });
     }
 }
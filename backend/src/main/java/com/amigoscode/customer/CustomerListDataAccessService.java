@@ -1,27 +1,49 @@
 package com.amigoscode.customer;
 
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
+/**
+ * In-memory customer store that is safe to share between threads. Stored customers are
+ * never mutated, updates replace them with a copy, so readers always see a consistent row.
+ */
 @Repository("list")
+@Profile("!reactive")
 public class CustomerListDataAccessService implements CustomerDAO {
 
-    private static final List<Customer> CUSTOMERS;
+    private final Map<Long, Customer> customers = new ConcurrentHashMap<>();
+    // keeps the ids ordered for keyset pagination
+    private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+    private final Map<String, Long> idsByEmail = new ConcurrentHashMap<>();
+    // fuzzy search, like the pg_trgm indexes on name and email
+    private final TrigramIndex nameTrigrams = new TrigramIndex();
+    private final TrigramIndex emailTrigrams = new TrigramIndex();
+    private final AtomicLong nextId = new AtomicLong();
 
-    static {
-        CUSTOMERS = new ArrayList<>();
-        CUSTOMERS.add(new Customer(
-                        1,
+    public CustomerListDataAccessService() {
+        insertCustomer(new Customer(
                         "Alex",
                         "alex@gmail.com",
                         21
                 )
         );
-        CUSTOMERS.add(new Customer(
-                        2,
+        insertCustomer(new Customer(
                         "Jamile",
                         "jamile@gmail.com",
                         23
@@ -31,42 +53,173 @@ public class CustomerListDataAccessService implements CustomerDAO {
 
     @Override
     public List<Customer> selectAllCustomers() {
-        return CUSTOMERS;
+        return selectCustomers(0L, Integer.MAX_VALUE);
     }
 
     @Override
-    public Optional<Customer> selectCustomerById(Integer id) {
-        return CUSTOMERS
-                .stream()
-                .filter(c -> c.getId().equals(id))
-                .findFirst();
+    public List<Customer> selectCustomers(Long after, int limit) {
+        List<Customer> page = new ArrayList<>(Math.min(limit, STREAM_PAGE_SIZE));
+        for (Long id : ids.tailSet(after, false)) {
+            if (page.size() == limit) {
+                break;
+            }
+            // the id may belong to a customer that is being deleted
+            Customer customer = customers.get(id);
+            if (customer != null) {
+                page.add(copy(customer));
+            }
+        }
+        return page;
     }
 
     @Override
-    public void insertCustomer(Customer customer) {
-        CUSTOMERS.add(customer);
+    public Optional<Customer> selectCustomerById(Long id) {
+        return Optional.ofNullable(customers.get(id)).map(CustomerListDataAccessService::copy);
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, int limit) {
+        // no secondary indexes here, every search scans all customers
+        return customers.values().stream()
+                .filter(search::matches)
+                .sorted(search.order())
+                .limit(limit)
+                .map(CustomerListDataAccessService::copy)
+                .toList();
+    }
+
+    @Override
+    public List<CustomerMatch> findSimilarCustomers(String text, int limit) {
+        Set<String> trigrams = TrigramIndex.trigrams(text);
+        int minShared = TrigramIndex.minShared(trigrams.size());
+        Set<Long> candidates = nameTrigrams.candidates(trigrams, minShared);
+        candidates.addAll(emailTrigrams.candidates(trigrams, minShared));
+        // the candidates are rechecked against the current rows, the indexes may lag behind them
+        return candidates.stream()
+                .map(customers::get)
+                .filter(Objects::nonNull)
+                .map(customer -> new CustomerMatch(copy(customer), Math.max(
+                        TrigramIndex.similarity(trigrams, TrigramIndex.trigrams(customer.getName())),
+                        TrigramIndex.similarity(trigrams, TrigramIndex.trigrams(customer.getEmail()))
+                )))
+                .filter(match -> match.similarity() >= TrigramIndex.SIMILARITY_THRESHOLD)
+                .sorted(CustomerMatch.RANKING)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public CustomerCounts countCustomers() {
+        Collection<Customer> all = customers.values();
+        return new CustomerCounts(
+                all.stream().collect(Collectors.groupingBy(Customer::getAge, Collectors.counting())),
+                all.stream().collect(Collectors.groupingBy(
+                        customer -> CustomerSearch.emailDomain(customer.getEmail()), Collectors.counting()))
+        );
+    }
+
+    @Override
+    public boolean insertCustomer(Customer customer) {
+        long id = nextId.incrementAndGet();
+        if (idsByEmail.putIfAbsent(emailKey(customer.getEmail()), id) != null) {
+            return false;
+        }
+        customer.setId(id);
+        // indexed first, so that an update of the new customer finds its trigrams to replace
+        index(id, customer);
+        customers.put(id, copy(customer));
+        ids.add(id);
+        return true;
+    }
+
+    @Override
+    public int insertCustomers(List<Customer> customers) {
+        return (int) customers.stream()
+                .filter(this::insertCustomer)
+                .count();
     }
 
     @Override
     public boolean existsPersonWithEmail(String email) {
-        return CUSTOMERS.stream()
-                .anyMatch(c -> c.getEmail().equalsIgnoreCase(email));
+        return idsByEmail.containsKey(emailKey(email));
     }
 
     @Override
-    public boolean existsPersonWithId(Integer id) {
-        return CUSTOMERS.stream()
-                .anyMatch(c -> c.getId().equals(id));
+    public boolean existsPersonWithId(Long id) {
+        return customers.containsKey(id);
     }
 
     @Override
-    public void deleteCustomerById(Integer id) {
-        var opt = selectCustomerById(id);
-        opt.ifPresent(CUSTOMERS::remove);
+    public Optional<Customer> deleteCustomerById(Long id) {
+        Customer removed = customers.remove(id);
+        if (removed == null) {
+            return Optional.empty();
+        }
+        ids.remove(id);
+        idsByEmail.remove(emailKey(removed.getEmail()), id);
+        unindex(id, removed);
+        // no longer stored, so it needs no copy
+        return Optional.of(removed);
     }
 
     @Override
-    public void updateCustomer(Customer customerToUpdate) {
-        CUSTOMERS.add(customerToUpdate);
+    public Optional<Customer> updateCustomer(Customer customerToUpdate) {
+        AtomicReference<Customer> previous = new AtomicReference<>();
+        // compute serializes writers of the same customer, delete included
+        customers.computeIfPresent(customerToUpdate.getId(), (id, current) -> {
+            Customer updated = copy(current);
+            if (customerToUpdate.getName() != null) {
+                updated.setName(customerToUpdate.getName());
+            }
+            if (customerToUpdate.getEmail() != null) {
+                String oldKey = emailKey(current.getEmail());
+                String newKey = emailKey(customerToUpdate.getEmail());
+                if (!newKey.equals(oldKey)) {
+                    Long owner = idsByEmail.putIfAbsent(newKey, id);
+                    if (owner != null && !owner.equals(id)) {
+                        throw new DuplicateKeyException(
+                                "customer with email [%s] already exists".formatted(customerToUpdate.getEmail())
+                        );
+                    }
+                    idsByEmail.remove(oldKey, id);
+                }
+                updated.setEmail(customerToUpdate.getEmail());
+            }
+            if (customerToUpdate.getAge() != null) {
+                updated.setAge(customerToUpdate.getAge());
+            }
+            reindex(id, current, updated);
+            previous.set(current);
+            return updated;
+        });
+        return Optional.ofNullable(previous.get());
+    }
+
+    private void index(Long id, Customer customer) {
+        nameTrigrams.add(id, customer.getName());
+        emailTrigrams.add(id, customer.getEmail());
+    }
+
+    private void unindex(Long id, Customer customer) {
+        nameTrigrams.remove(id, customer.getName());
+        emailTrigrams.remove(id, customer.getEmail());
+    }
+
+    private void reindex(Long id, Customer current, Customer updated) {
+        nameTrigrams.replace(id, current.getName(), updated.getName());
+        emailTrigrams.replace(id, current.getEmail(), updated.getEmail());
+    }
+
+    private static String emailKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private static Customer copy(Customer customer) {
+        return new Customer(
+                customer.getId(),
+                customer.getName(),
+                customer.getEmail(),
+                customer.getAge()
+        );
     }
 }
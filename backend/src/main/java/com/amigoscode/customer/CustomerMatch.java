@@ -0,0 +1,19 @@
+package com.amigoscode.customer;
+
+import java.util.Comparator;
+
+/**
+ * A customer found by a fuzzy search.
+ *
+ * @param similarity the greater of the name's and the email's trigram similarity to the query
+ */
+public record CustomerMatch(
+        Customer customer,
+        float similarity
+) {
+
+    // most similar first, ties by id so that every backend returns the same order
+    static final Comparator<CustomerMatch> RANKING = Comparator.comparing(CustomerMatch::similarity)
+            .reversed()
+            .thenComparing(match -> match.customer().getId());
+}
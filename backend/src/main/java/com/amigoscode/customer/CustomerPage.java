@@ -0,0 +1,20 @@
+package com.amigoscode.customer;
+
+import java.util.List;
+
+public record CustomerPage(
+        List<Customer> customers,
+        Long nextCursor
+) {
+
+    /**
+     * @param customers up to pageSize + 1 customers, the extra one only tells that there is a next page
+     */
+    static CustomerPage of(List<Customer> customers, int pageSize) {
+        if (customers.size() <= pageSize) {
+            return new CustomerPage(customers, null);
+        }
+        List<Customer> page = customers.subList(0, pageSize);
+        return new CustomerPage(page, page.get(pageSize - 1).getId());
+    }
+}
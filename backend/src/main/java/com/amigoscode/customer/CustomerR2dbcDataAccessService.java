@@ -0,0 +1,219 @@
+package com.amigoscode.customer;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * R2DBC implementation of {@link ReactiveCustomerDAO}. The connection pool is private to
+ * this DAO and points at the same database as {@code spring.datasource}; exposing it as a
+ * ConnectionFactory bean would make Spring Boot stop configuring the JDBC DataSource.
+ */
+@Repository("r2dbc")
+@Profile("reactive")
+public class CustomerR2dbcDataAccessService implements ReactiveCustomerDAO, DisposableBean {
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+
+    public CustomerR2dbcDataAccessService(DataSourceProperties dataSourceProperties,
+                                          CustomerR2dbcProperties properties) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions
+                .parse(dataSourceProperties.determineUrl().replaceFirst("^jdbc:", "r2dbc:"))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, dataSourceProperties.determineUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, dataSourceProperties.determinePassword())
+                .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options))
+                .maxSize(properties.maxPoolSize())
+                .build());
+        this.databaseClient = DatabaseClient.create(connectionPool);
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+
+    @Override
+    public Flux<Customer> selectAllCustomers() {
+        String sql = """
+                SELECT id, name, email, age FROM customer
+                ORDER BY id;
+                """;
+        // rows are fetched in batches as the subscriber asks for them
+        return databaseClient.sql(sql)
+                .filter(statement -> statement.fetchSize(CustomerDAO.STREAM_PAGE_SIZE))
+                .map(CustomerR2dbcDataAccessService::mapRow)
+                .all();
+    }
+
+    @Override
+    public Flux<Customer> selectCustomers(Long after, int limit) {
+        String sql = """
+                SELECT id, name, email, age FROM customer
+                WHERE id > $1
+                ORDER BY id
+                LIMIT $2;
+                """;
+        return databaseClient.sql(sql)
+                .bind(0, after)
+                .bind(1, limit)
+                .filter(statement -> statement.fetchSize(CustomerDAO.STREAM_PAGE_SIZE))
+                .map(CustomerR2dbcDataAccessService::mapRow)
+                .all();
+    }
+
+    @Override
+    public Mono<Customer> selectCustomerById(Long id) {
+        String sql = """
+                SELECT id, name, email, age FROM customer
+                WHERE id = $1;
+                """;
+        return databaseClient.sql(sql)
+                .bind(0, id)
+                .map(CustomerR2dbcDataAccessService::mapRow)
+                .one();
+    }
+
+    @Override
+    public Mono<Boolean> insertCustomer(Customer customer) {
+        String sql = """
+                INSERT INTO customer(name, email, age)
+                VALUES ($1, $2, $3)
+                ON CONFLICT ((lower(email))) DO NOTHING
+                RETURNING id;
+                """;
+        return databaseClient.sql(sql)
+                .bind(0, customer.getName())
+                .bind(1, customer.getEmail())
+                .bind(2, customer.getAge())
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .doOnNext(customer::setId)
+                .hasElement();
+    }
+
+    @Override
+    public Mono<Integer> insertCustomers(List<Customer> customers) {
+        String sql = """
+                INSERT INTO customer(name, email, age)
+                SELECT * FROM unnest($1::text[], $2::text[], $3::int[])
+                ON CONFLICT ((lower(email))) DO NOTHING
+                RETURNING id, email;
+                """;
+        // keyed like the lower(email) index, the first of two emails differing in case is the one inserted
+        Map<String, Customer> customersByEmail = new HashMap<>();
+        // a row without an email is left to the NOT NULL constraint, like a single insert
+        customers.stream()
+                .filter(customer -> customer.getEmail() != null)
+                .forEach(customer -> customersByEmail.putIfAbsent(customer.getEmail().toLowerCase(Locale.ROOT), customer));
+
+        return databaseClient.sql(sql)
+                .bind(0, customers.stream().map(Customer::getName).toArray(String[]::new))
+                .bind(1, customers.stream().map(Customer::getEmail).toArray(String[]::new))
+                .bind(2, customers.stream().map(Customer::getAge).toArray(Integer[]::new))
+                .map(row -> {
+                    customersByEmail.get(row.get("email", String.class).toLowerCase(Locale.ROOT))
+                            .setId(row.get("id", Long.class));
+                    return 1;
+                })
+                .all()
+                .count()
+                .map(Long::intValue);
+    }
+
+    @Override
+    public Mono<Long> importCustomers(Flux<Customer> customers) {
+        // one chunk in flight at a time, so a fast producer is held back by the database
+        return customers
+                .buffer(CustomerDAO.STREAM_PAGE_SIZE)
+                .concatMap(this::insertCustomers)
+                .reduce(0L, Long::sum);
+    }
+
+    @Override
+    public Mono<Boolean> existsPersonWithEmail(String email) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM customer WHERE lower(email) = lower($1))";
+        return databaseClient.sql(sql)
+                .bind(0, email)
+                .map(row -> row.get(0, Boolean.class))
+                .one();
+    }
+
+    @Override
+    public Mono<Boolean> existsPersonWithId(Long id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM customer WHERE id = $1)";
+        return databaseClient.sql(sql)
+                .bind(0, id)
+                .map(row -> row.get(0, Boolean.class))
+                .one();
+    }
+
+    @Override
+    public Mono<Boolean> deleteCustomerById(Long id) {
+        String sql = "DELETE FROM customer WHERE id = $1";
+        return databaseClient.sql(sql)
+                .bind(0, id)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows > 0);
+    }
+
+    @Override
+    public Mono<Void> updateCustomer(Customer customerToUpdate) {
+        List<String> assignments = new ArrayList<>(3);
+        List<Object> args = new ArrayList<>(4);
+        if (customerToUpdate.getName() != null) {
+            args.add(customerToUpdate.getName());
+            assignments.add("name = $" + args.size());
+        }
+        if (customerToUpdate.getEmail() != null) {
+            args.add(customerToUpdate.getEmail());
+            assignments.add("email = $" + args.size());
+        }
+        if (customerToUpdate.getAge() != null) {
+            args.add(customerToUpdate.getAge());
+            assignments.add("age = $" + args.size());
+        }
+        if (assignments.isEmpty()) {
+            return Mono.empty();
+        }
+        args.add(customerToUpdate.getId());
+
+        String sql = """
+                UPDATE customer SET %s
+                WHERE id = $%d;
+                """.formatted(String.join(", ", assignments), args.size());
+        DatabaseClient.GenericExecuteSpec statement = databaseClient.sql(sql);
+        for (int i = 0; i < args.size(); i++) {
+            statement = statement.bind(i, args.get(i));
+        }
+        return statement.then();
+    }
+
+    private static Customer mapRow(Readable row) {
+        return new Customer(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                row.get("age", Integer.class)
+        );
+    }
+}
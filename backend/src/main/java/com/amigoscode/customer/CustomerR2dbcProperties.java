@@ -0,0 +1,10 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "customer.r2dbc")
+public record CustomerR2dbcProperties(
+        @DefaultValue("20") int maxPoolSize
+) {
+}
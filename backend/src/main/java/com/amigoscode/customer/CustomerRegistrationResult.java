@@ -0,0 +1,26 @@
+package com.amigoscode.customer;
+
+public record CustomerRegistrationResult(
+        String email,
+        Status status,
+        Long id
+) {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    public static CustomerRegistrationResult created(Customer customer) {
+        return new CustomerRegistrationResult(customer.getEmail(), Status.CREATED, customer.getId());
+    }
+
+    public static CustomerRegistrationResult duplicate(String email) {
+        return new CustomerRegistrationResult(email, Status.DUPLICATE, null);
+    }
+
+    public static CustomerRegistrationResult invalid(String email) {
+        return new CustomerRegistrationResult(email, Status.INVALID, null);
+    }
+}
@@ -0,0 +1,149 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.datasource.ReplicaRoutingContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Runs reads inside {@link ReplicaRoutingContext#readOnly} so they are served by a replica.
+ * Ids and emails written through this service stay on the primary for the read-your-writes
+ * window, which keeps read-then-write sequences such as an update consistent while the
+ * replicas catch up. A zero window disables the stickiness.
+ */
+public class CustomerReplicaDataAccessService implements CustomerDAO {
+
+    private final CustomerDAO delegate;
+    private final Cache<Object, Boolean> recentlyWritten;
+
+    public CustomerReplicaDataAccessService(CustomerDAO delegate,
+                                            Duration readYourWritesWindow,
+                                            long maximumStickyKeys) {
+        this.delegate = delegate;
+        this.recentlyWritten = readYourWritesWindow.isZero()
+                ? null
+                : Caffeine.newBuilder()
+                        .expireAfterWrite(readYourWritesWindow)
+                        .maximumSize(maximumStickyKeys)
+                        .build();
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return ReplicaRoutingContext.readOnly(delegate::selectAllCustomers);
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long after, int limit) {
+        return ReplicaRoutingContext.readOnly(() -> delegate.selectCustomers(after, limit));
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        if (isSticky(id)) {
+            return delegate.selectCustomerById(id);
+        }
+        return ReplicaRoutingContext.readOnly(() -> delegate.selectCustomerById(id));
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, int limit) {
+        return ReplicaRoutingContext.readOnly(() -> delegate.searchCustomers(search, limit));
+    }
+
+    @Override
+    public List<CustomerMatch> findSimilarCustomers(String text, int limit) {
+        return ReplicaRoutingContext.readOnly(() -> delegate.findSimilarCustomers(text, limit));
+    }
+
+    @Override
+    public CustomerCounts countCustomers() {
+        // not from a replica, the counts reconcile aggregates that follow the writes
+        return delegate.countCustomers();
+    }
+
+    @Override
+    public boolean insertCustomer(Customer customer) {
+        boolean inserted = delegate.insertCustomer(customer);
+        written(customer.getId(), customer.getEmail());
+        return inserted;
+    }
+
+    @Override
+    public int insertCustomers(List<Customer> customers) {
+        int inserted = delegate.insertCustomers(customers);
+        customers.forEach(customer -> written(customer.getId(), customer.getEmail()));
+        return inserted;
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        if (isSticky(emailKey(email))) {
+            return delegate.existsPersonWithEmail(email);
+        }
+        return ReplicaRoutingContext.readOnly(() -> delegate.existsPersonWithEmail(email));
+    }
+
+    @Override
+    public boolean existsPersonWithId(Long id) {
+        if (isSticky(id)) {
+            return delegate.existsPersonWithId(id);
+        }
+        return ReplicaRoutingContext.readOnly(() -> delegate.existsPersonWithId(id));
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerById(Long id) {
+        Optional<Customer> deleted = delegate.deleteCustomerById(id);
+        // a lagging replica still has the email, which is free again on the primary
+        written(id, deleted.map(Customer::getEmail).orElse(null));
+        return deleted;
+    }
+
+    @Override
+    public Optional<Customer> updateCustomer(Customer customerToUpdate) {
+        Optional<Customer> previous = delegate.updateCustomer(customerToUpdate);
+        written(customerToUpdate.getId(), customerToUpdate.getEmail());
+        // the old email is taken on a lagging replica and free on the primary
+        previous.ifPresent(customer -> written(null, customer.getEmail()));
+        return previous;
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        ReplicaRoutingContext.readOnly(() -> delegate.streamAllCustomers(consumer));
+    }
+
+    @Override
+    public CustomerCounts importCustomers(Iterator<Customer> customers) {
+        // imported rows are not made sticky, a lagging replica can only make the
+        // duplicate check miss and the unique constraint still rejects the row
+        return delegate.importCustomers(customers);
+    }
+
+    private boolean isSticky(Object key) {
+        return recentlyWritten != null && key != null && recentlyWritten.getIfPresent(key) != null;
+    }
+
+    private void written(Long id, String email) {
+        if (recentlyWritten == null) {
+            return;
+        }
+        if (id != null) {
+            recentlyWritten.put(id, Boolean.TRUE);
+        }
+        if (email != null) {
+            recentlyWritten.put(emailKey(email), Boolean.TRUE);
+        }
+    }
+
+    private static String emailKey(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,12 +1,51 @@
 package com.amigoscode.customer;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
 @RestController
-public interface CustomerRepository extends JpaRepository<Customer, Integer> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, CustomerSearchRepository {
+
+    List<Customer> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 
+    // lower() on both sides so that the lookup uses the unique index on lower(email)
+    @Query("SELECT count(c) > 0 FROM Customer c WHERE lower(c.email) = lower(?1)")
     boolean existsCustomerByEmail(String email);
-    boolean existsCustomerById(Integer id);
+
+    boolean existsCustomerById(Long id);
+
+    // expects lower-cased emails and returns them lower-cased
+    @Query("SELECT lower(c.email) FROM Customer c WHERE lower(c.email) IN ?1")
+    Set<String> findLowerCaseEmailsIn(Collection<String> lowerCaseEmails);
+
+    @Query("SELECT c.age, count(c) FROM Customer c GROUP BY c.age")
+    List<Object[]> countByAge();
+
+    @Query("""
+            SELECT function('split_part', lower(c.email), '@', 2), count(c) FROM Customer c
+            GROUP BY function('split_part', lower(c.email), '@', 2)
+            """)
+    List<Object[]> countByEmailDomain();
+
+    // the row stays locked until the transaction ends, so no other write can change it in between
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Customer c WHERE c.id = ?1")
+    Optional<Customer> findForUpdateById(Long id);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Customer c WHERE c.id = ?1")
+    int deleteCustomerById(Long id);
 
 }
@@ -0,0 +1,156 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.customer.OperationTimer.Outcome;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.tracing.Tracer;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Sends reads to one {@link CustomerDAO} and writes to another. Every call is timed under
+ * {@code customer.dao.calls}, tagged with the operation, its outcome, the route and the
+ * backend that served it. The read backend has to see the data written through the write
+ * backend, this class does not copy anything between them, so
+ * {@link CustomerDataAccessConfig#requireSharedData} refuses backends that do not share it.
+ */
+public class CustomerRoutingDataAccessService implements CustomerDAO {
+
+    static final String METRIC_NAME = "customer.dao.calls";
+
+    private final CustomerDAO reads;
+    private final CustomerDAO writes;
+
+    private final OperationTimer selectAllCustomers;
+    private final OperationTimer selectCustomers;
+    private final OperationTimer selectCustomerById;
+    private final OperationTimer searchCustomers;
+    private final OperationTimer findSimilarCustomers;
+    private final OperationTimer countCustomers;
+    private final OperationTimer existsPersonWithEmail;
+    private final OperationTimer existsPersonWithId;
+    private final OperationTimer streamAllCustomers;
+    private final OperationTimer insertCustomer;
+    private final OperationTimer insertCustomers;
+    private final OperationTimer importCustomers;
+    private final OperationTimer deleteCustomerById;
+    private final OperationTimer updateCustomer;
+
+    public CustomerRoutingDataAccessService(String readBackend, CustomerDAO reads,
+                                            String writeBackend, CustomerDAO writes,
+                                            MeterRegistry meterRegistry,
+                                            Tracer tracer) {
+        this.reads = reads;
+        this.writes = writes;
+        this.selectAllCustomers = read(meterRegistry, tracer, "selectAllCustomers", readBackend, Outcome.SUCCESS);
+        this.selectCustomers = read(meterRegistry, tracer, "selectCustomers", readBackend, Outcome.SUCCESS);
+        this.selectCustomerById = read(meterRegistry, tracer, "selectCustomerById", readBackend,
+                Outcome.FOUND, Outcome.NOT_FOUND);
+        this.searchCustomers = read(meterRegistry, tracer, "searchCustomers", readBackend, Outcome.SUCCESS);
+        this.findSimilarCustomers = read(meterRegistry, tracer, "findSimilarCustomers", readBackend,
+                Outcome.SUCCESS);
+        this.countCustomers = read(meterRegistry, tracer, "countCustomers", readBackend, Outcome.SUCCESS);
+        this.existsPersonWithEmail = read(meterRegistry, tracer, "existsPersonWithEmail", readBackend,
+                Outcome.FOUND, Outcome.NOT_FOUND);
+        this.existsPersonWithId = read(meterRegistry, tracer, "existsPersonWithId", readBackend,
+                Outcome.FOUND, Outcome.NOT_FOUND);
+        this.streamAllCustomers = read(meterRegistry, tracer, "streamAllCustomers", readBackend, Outcome.SUCCESS);
+        this.insertCustomer = write(meterRegistry, tracer, "insertCustomer", writeBackend,
+                Outcome.SUCCESS, Outcome.DUPLICATE);
+        this.insertCustomers = write(meterRegistry, tracer, "insertCustomers", writeBackend, Outcome.SUCCESS);
+        this.importCustomers = write(meterRegistry, tracer, "importCustomers", writeBackend, Outcome.SUCCESS);
+        this.deleteCustomerById = write(meterRegistry, tracer, "deleteCustomerById", writeBackend,
+                Outcome.FOUND, Outcome.NOT_FOUND);
+        this.updateCustomer = write(meterRegistry, tracer, "updateCustomer", writeBackend,
+                Outcome.SUCCESS, Outcome.DUPLICATE);
+    }
+
+    private static OperationTimer read(MeterRegistry meterRegistry, Tracer tracer, String operation,
+                                       String backend, Outcome... outcomes) {
+        return timer(meterRegistry, tracer, operation, "read", backend, outcomes);
+    }
+
+    private static OperationTimer write(MeterRegistry meterRegistry, Tracer tracer, String operation,
+                                        String backend, Outcome... outcomes) {
+        return timer(meterRegistry, tracer, operation, "write", backend, outcomes);
+    }
+
+    private static OperationTimer timer(MeterRegistry meterRegistry, Tracer tracer, String operation,
+                                        String route, String backend, Outcome... outcomes) {
+        Tags tags = Tags.of("operation", operation, "route", route, "backend", backend);
+        return new OperationTimer(meterRegistry, tracer, METRIC_NAME, "CustomerDAO", tags, outcomes);
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return selectAllCustomers.record(reads::selectAllCustomers);
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long after, int limit) {
+        return selectCustomers.record(() -> reads.selectCustomers(after, limit));
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        return selectCustomerById.record(() -> reads.selectCustomerById(id), OperationTimer::found);
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, int limit) {
+        return searchCustomers.record(() -> reads.searchCustomers(search, limit));
+    }
+
+    @Override
+    public List<CustomerMatch> findSimilarCustomers(String text, int limit) {
+        return findSimilarCustomers.record(() -> reads.findSimilarCustomers(text, limit));
+    }
+
+    @Override
+    public CustomerCounts countCustomers() {
+        return countCustomers.record(reads::countCustomers);
+    }
+
+    @Override
+    public boolean insertCustomer(Customer customer) {
+        return insertCustomer.record(() -> writes.insertCustomer(customer), OperationTimer::inserted);
+    }
+
+    @Override
+    public int insertCustomers(List<Customer> customers) {
+        return insertCustomers.record(() -> writes.insertCustomers(customers));
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return existsPersonWithEmail.record(() -> reads.existsPersonWithEmail(email), OperationTimer::found);
+    }
+
+    @Override
+    public boolean existsPersonWithId(Long id) {
+        return existsPersonWithId.record(() -> reads.existsPersonWithId(id), OperationTimer::found);
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerById(Long id) {
+        return deleteCustomerById.record(() -> writes.deleteCustomerById(id), OperationTimer::found);
+    }
+
+    @Override
+    public Optional<Customer> updateCustomer(Customer customerToUpdate) {
+        return updateCustomer.record(() -> writes.updateCustomer(customerToUpdate));
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        streamAllCustomers.record(() -> reads.streamAllCustomers(consumer));
+    }
+
+    @Override
+    public CustomerCounts importCustomers(Iterator<Customer> customers) {
+        return importCustomers.record(() -> writes.importCustomers(customers));
+    }
+}
@@ -0,0 +1,83 @@
+package com.amigoscode.customer;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Filters, order and keyset position of a customer search. Every filter is optional.
+ * {@code after} is the last customer of the previous page; only its id and the field
+ * the results are sorted by need to be set.
+ *
+ * @param namePrefix  matches names starting with it, ignoring case
+ * @param emailDomain matches emails at exactly this domain, ignoring case
+ * @param minAge      inclusive
+ * @param maxAge      inclusive
+ */
+public record CustomerSearch(
+        String namePrefix,
+        String emailDomain,
+        Integer minAge,
+        Integer maxAge,
+        Sort sort,
+        boolean descending,
+        Customer after
+) {
+
+    public enum Sort {
+        ID,
+        NAME,
+        AGE
+    }
+
+    public CustomerSearch {
+        namePrefix = namePrefix == null || namePrefix.isBlank() ? null : namePrefix.toLowerCase(Locale.ROOT);
+        emailDomain = emailDomain == null || emailDomain.isBlank() ? null : emailDomain.toLowerCase(Locale.ROOT);
+        sort = sort == null ? Sort.ID : sort;
+    }
+
+    public static CustomerSearch all() {
+        return new CustomerSearch(null, null, null, null, Sort.ID, false, null);
+    }
+
+    public CustomerSearch after(Customer last) {
+        return new CustomerSearch(namePrefix, emailDomain, minAge, maxAge, sort, descending, last);
+    }
+
+    /**
+     * The SQL backends order names by the database collation, which may place some names
+     * differently. Pages stay consistent either way because every backend compares with
+     * the order it sorts by.
+     */
+    public Comparator<Customer> order() {
+        Comparator<Customer> order = switch (sort) {
+            case ID -> Comparator.comparing(Customer::getId);
+            case NAME -> Comparator.comparing(Customer::getName).thenComparing(Customer::getId);
+            case AGE -> Comparator.comparing(Customer::getAge).thenComparing(Customer::getId);
+        };
+        return descending ? order.reversed() : order;
+    }
+
+    public boolean matches(Customer customer) {
+        return (namePrefix == null || customer.getName().toLowerCase(Locale.ROOT).startsWith(namePrefix))
+                && (emailDomain == null || emailDomain.equals(emailDomain(customer.getEmail())))
+                && (minAge == null || customer.getAge() >= minAge)
+                && (maxAge == null || customer.getAge() <= maxAge)
+                && (after == null || order().compare(customer, after) > 0);
+    }
+
+    // the same as split_part(lower(email), '@', 2) in SQL
+    static String emailDomain(String email) {
+        String lowerCase = email.toLowerCase(Locale.ROOT);
+        int start = lowerCase.indexOf('@');
+        if (start < 0) {
+            return "";
+        }
+        int end = lowerCase.indexOf('@', start + 1);
+        return end < 0 ? lowerCase.substring(start + 1) : lowerCase.substring(start + 1, end);
+    }
+
+    // LIKE pattern for namePrefix, with its wildcards escaped by a backslash
+    String namePattern() {
+        return namePrefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,57 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.RequestValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor of a search page. It holds the sort order and the keyset values of the
+ * page's last customer, so a cursor cannot be reused with a different sort.
+ */
+final class CustomerSearchCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private CustomerSearchCursor() {
+    }
+
+    static String encode(CustomerSearch search, Customer last) {
+        String key = switch (search.sort()) {
+            case ID -> "";
+            case NAME -> last.getName();
+            case AGE -> String.valueOf(last.getAge());
+        };
+        String cursor = String.join(SEPARATOR,
+                search.sort().name(), search.descending() ? "desc" : "asc", String.valueOf(last.getId()), key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Customer decode(CustomerSearch search, String cursor) {
+        try {
+            // the name is last and may itself contain the separator
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, 4);
+            if (parts.length != 4
+                    || !parts[0].equals(search.sort().name())
+                    || !parts[1].equals(search.descending() ? "desc" : "asc")) {
+                throw invalid();
+            }
+            Customer after = new Customer();
+            after.setId(Long.parseLong(parts[2]));
+            switch (search.sort()) {
+                case NAME -> after.setName(parts[3]);
+                case AGE -> after.setAge(Integer.parseInt(parts[3]));
+                case ID -> {
+                }
+            }
+            return after;
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+
+    private static RequestValidationException invalid() {
+        return new RequestValidationException("cursor does not belong to this search");
+    }
+}
@@ -0,0 +1,9 @@
+package com.amigoscode.customer;
+
+import java.util.List;
+
+public record CustomerSearchPage(
+        List<Customer> customers,
+        String nextCursor
+) {
+}
@@ -0,0 +1,13 @@
+package com.amigoscode.customer;
+
+import java.util.List;
+
+/**
+ * Repository fragment for searches whose query depends on which filters are set.
+ */
+public interface CustomerSearchRepository {
+
+    List<Customer> search(CustomerSearch search, int limit);
+
+    List<CustomerMatch> findSimilar(String text, int limit);
+}
@@ -0,0 +1,92 @@
+package com.amigoscode.customer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class CustomerSearchRepositoryImpl implements CustomerSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Customer> search(CustomerSearch search, int limit) {
+        // the same predicates as the JDBC search so that they hit the same indexes
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (search.namePrefix() != null) {
+            conditions.add("lower(c.name) LIKE :namePattern ESCAPE '\\'");
+            parameters.put("namePattern", search.namePattern());
+        }
+        if (search.emailDomain() != null) {
+            // the literals are inlined, a bound '@' would not match the expression index
+            conditions.add("function('split_part', lower(c.email), '@', 2) = :emailDomain");
+            parameters.put("emailDomain", search.emailDomain());
+        }
+        if (search.minAge() != null) {
+            conditions.add("c.age >= :minAge");
+            parameters.put("minAge", search.minAge());
+        }
+        if (search.maxAge() != null) {
+            conditions.add("c.age <= :maxAge");
+            parameters.put("maxAge", search.maxAge());
+        }
+
+        String direction = search.descending() ? "DESC" : "ASC";
+        String comparison = search.descending() ? "<" : ">";
+        String orderBy = switch (search.sort()) {
+            case ID -> "c.id " + direction;
+            case NAME -> "c.name %s, c.id %s".formatted(direction, direction);
+            case AGE -> "c.age %s, c.id %s".formatted(direction, direction);
+        };
+        Customer after = search.after();
+        if (after != null) {
+            switch (search.sort()) {
+                case ID -> conditions.add("c.id %s :afterId".formatted(comparison));
+                case NAME -> {
+                    conditions.add("(c.name, c.id) %s (:afterName, :afterId)".formatted(comparison));
+                    parameters.put("afterName", after.getName());
+                }
+                case AGE -> {
+                    conditions.add("(c.age, c.id) %s (:afterAge, :afterId)".formatted(comparison));
+                    parameters.put("afterAge", after.getAge());
+                }
+            }
+            parameters.put("afterId", after.getId());
+        }
+
+        String jpql = "SELECT c FROM Customer c %s ORDER BY %s".formatted(
+                conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions),
+                orderBy
+        );
+        TypedQuery<Customer> query = entityManager.createQuery(jpql, Customer.class)
+                .setMaxResults(limit);
+        parameters.forEach(query::setParameter);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<CustomerMatch> findSimilar(String text, int limit) {
+        // native, JPQL has no pg_trgm operator; the same statement as the JDBC fuzzy search
+        String sql = """
+                SELECT id, name, email, age, greatest(similarity(name, :text), similarity(email, :text)) AS similarity
+                FROM customer
+                WHERE name % :text OR email % :text
+                ORDER BY similarity DESC, id
+                LIMIT :limit
+                """;
+        List<?> rows = entityManager.createNativeQuery(sql, Customer.MATCH_RESULT_MAPPING)
+                .setParameter("text", text)
+                .setParameter("limit", limit)
+                .getResultList();
+        return rows.stream()
+                .map(row -> (Object[]) row)
+                .map(row -> new CustomerMatch((Customer) row[0], (Float) row[1]))
+                .toList();
+    }
+}
@@ -0,0 +1,20 @@
+package com.amigoscode.customer;
+
+/**
+ * Query parameters of {@code GET /api/v1/customers/search}.
+ *
+ * @param sort      id, name or age, id when not given
+ * @param direction asc or desc, asc when not given
+ * @param cursor    nextCursor of the previous page
+ */
+public record CustomerSearchRequest(
+        String name,
+        String emailDomain,
+        Integer minAge,
+        Integer maxAge,
+        String sort,
+        String direction,
+        String cursor,
+        Integer limit
+) {
+}
@@ -2,26 +2,203 @@ package com.amigoscode.customer;
 
 import com.amigoscode.exception.DuplicateResourceException;
 import com.amigoscode.exception.RequestValidationException;
+import com.amigoscode.customer.OperationTimer.Outcome;
 import com.amigoscode.exception.ResourceNotFoundException;
-import org.springframework.beans.factory.annotation.Qualifier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.tracing.Tracer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+@Slf4j
 @Service
+@Profile("!reactive")
 public class CustomerService {
 
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int DEFAULT_SIMILAR_LIMIT = 10;
+    static final int MAX_SIMILAR_LIMIT = 50;
+    // long queries only produce more trigrams to look up, without finding anyone better
+    static final int MAX_SIMILAR_QUERY_LENGTH = 100;
+    static final int IMPORT_PROGRESS_LOG_INTERVAL = 100_000;
+    static final String METRIC_NAME = "customer.service.calls";
+
     private final CustomerDAO customerDAO;
+    private final CustomerBulkProperties bulkProperties;
+    private final Optional<CustomerAggregates> aggregates;
+    private final Map<UUID, CustomerImport> runningImports = new ConcurrentHashMap<>();
+
+    private final OperationTimer getAllCustomersTimer;
+    private final OperationTimer getCustomersTimer;
+    private final OperationTimer searchCustomersTimer;
+    private final OperationTimer findSimilarCustomersTimer;
+    private final OperationTimer exportCustomersTimer;
+    private final OperationTimer getStatsTimer;
+    private final OperationTimer getCustomerTimer;
+    private final OperationTimer addCustomerTimer;
+    private final OperationTimer addCustomersTimer;
+    private final OperationTimer importCustomersTimer;
+    private final OperationTimer deleteCustomerByIdTimer;
+    private final OperationTimer updateCustomerTimer;
 
-    public CustomerService(@Qualifier("jdbc") CustomerDAO customerDAO) {
+    public CustomerService(CustomerDAO customerDAO,
+                           CustomerBulkProperties bulkProperties,
+                           Optional<CustomerAggregates> aggregates,
+                           MeterRegistry meterRegistry,
+                           Tracer tracer) {
         this.customerDAO = customerDAO;
+        this.bulkProperties = bulkProperties;
+        this.aggregates = aggregates;
+        this.getAllCustomersTimer = timer(meterRegistry, tracer, "getAllCustomers", Outcome.SUCCESS);
+        this.getCustomersTimer = timer(meterRegistry, tracer, "getCustomers", Outcome.SUCCESS, Outcome.INVALID);
+        this.searchCustomersTimer = timer(meterRegistry, tracer, "searchCustomers", Outcome.SUCCESS, Outcome.INVALID);
+        this.findSimilarCustomersTimer = timer(meterRegistry, tracer, "findSimilarCustomers",
+                Outcome.SUCCESS, Outcome.INVALID);
+        this.exportCustomersTimer = timer(meterRegistry, tracer, "exportCustomers", Outcome.SUCCESS);
+        this.getStatsTimer = timer(meterRegistry, tracer, "getStats", Outcome.SUCCESS, Outcome.NOT_FOUND);
+        this.getCustomerTimer = timer(meterRegistry, tracer, "getCustomer", Outcome.FOUND, Outcome.NOT_FOUND);
+        this.addCustomerTimer = timer(meterRegistry, tracer, "addCustomer",
+                Outcome.SUCCESS, Outcome.DUPLICATE, Outcome.INVALID);
+        this.addCustomersTimer = timer(meterRegistry, tracer, "addCustomers", Outcome.SUCCESS, Outcome.INVALID);
+        this.importCustomersTimer = timer(meterRegistry, tracer, "importCustomers", Outcome.SUCCESS, Outcome.INVALID);
+        this.deleteCustomerByIdTimer = timer(meterRegistry, tracer, "deleteCustomerById",
+                Outcome.SUCCESS, Outcome.NOT_FOUND);
+        this.updateCustomerTimer = timer(meterRegistry, tracer, "updateCustomer",
+                Outcome.SUCCESS, Outcome.NOT_FOUND, Outcome.DUPLICATE, Outcome.INVALID);
+    }
+
+    private static OperationTimer timer(MeterRegistry meterRegistry, Tracer tracer, String operation,
+                                        Outcome... outcomes) {
+        return new OperationTimer(meterRegistry, tracer, METRIC_NAME, "CustomerService",
+                Tags.of("operation", operation), outcomes);
     }
 
     public List<Customer> getAllCustomers() {
-        return customerDAO.selectAllCustomers();
+        return getAllCustomersTimer.record(customerDAO::selectAllCustomers);
+    }
+
+    public CustomerPage getCustomers(Long after, Integer limit) {
+        return getCustomersTimer.record(() -> selectPage(after, limit));
+    }
+
+    static int pageSize(Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new RequestValidationException("limit must be between 1 and %s".formatted(MAX_PAGE_SIZE));
+        }
+        return pageSize;
+    }
+
+    private CustomerPage selectPage(Long after, Integer limit) {
+        int pageSize = pageSize(limit);
+
+        // fetch one extra row to find out whether there is a next page
+        List<Customer> customers = customerDAO.selectCustomers(after == null ? 0 : after, pageSize + 1);
+        return CustomerPage.of(customers, pageSize);
+    }
+
+    public CustomerSearchPage searchCustomers(CustomerSearchRequest request) {
+        return searchCustomersTimer.record(() -> search(request));
+    }
+
+    private CustomerSearchPage search(CustomerSearchRequest request) {
+        int pageSize = pageSize(request.limit());
+        if (request.minAge() != null && request.maxAge() != null && request.minAge() > request.maxAge()) {
+            throw new RequestValidationException("minAge must not be greater than maxAge");
+        }
+        CustomerSearch search = new CustomerSearch(
+                request.name(),
+                request.emailDomain(),
+                request.minAge(),
+                request.maxAge(),
+                sort(request.sort()),
+                descending(request.direction()),
+                null
+        );
+        if (request.cursor() != null) {
+            search = search.after(CustomerSearchCursor.decode(search, request.cursor()));
+        }
+
+        // fetch one extra row to find out whether there is a next page
+        List<Customer> customers = customerDAO.searchCustomers(search, pageSize + 1);
+        if (customers.size() <= pageSize) {
+            return new CustomerSearchPage(customers, null);
+        }
+
+        List<Customer> page = customers.subList(0, pageSize);
+        return new CustomerSearchPage(page, CustomerSearchCursor.encode(search, page.get(pageSize - 1)));
+    }
+
+    private static CustomerSearch.Sort sort(String sort) {
+        if (sort == null) {
+            return CustomerSearch.Sort.ID;
+        }
+        try {
+            return CustomerSearch.Sort.valueOf(sort.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RequestValidationException("sort must be one of id, name, age");
+        }
+    }
+
+    private static boolean descending(String direction) {
+        if (direction == null || direction.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        if (direction.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        throw new RequestValidationException("direction must be asc or desc");
+    }
+
+    public List<CustomerMatch> findSimilarCustomers(String query, Integer limit) {
+        return findSimilarCustomersTimer.record(() -> selectSimilar(query, limit));
+    }
+
+    private List<CustomerMatch> selectSimilar(String query, Integer limit) {
+        if (query == null || query.isBlank() || query.length() > MAX_SIMILAR_QUERY_LENGTH) {
+            throw new RequestValidationException(
+                    "q must be between 1 and %s characters".formatted(MAX_SIMILAR_QUERY_LENGTH)
+            );
+        }
+        int resultLimit = limit == null ? DEFAULT_SIMILAR_LIMIT : limit;
+        if (resultLimit < 1 || resultLimit > MAX_SIMILAR_LIMIT) {
+            throw new RequestValidationException("limit must be between 1 and %s".formatted(MAX_SIMILAR_LIMIT));
+        }
+        return customerDAO.findSimilarCustomers(query.strip(), resultLimit);
+    }
+
+    public void exportCustomers(Consumer<Customer> consumer) {
+        exportCustomersTimer.record(() -> customerDAO.streamAllCustomers(consumer));
+    }
+
+    public CustomerStats getStats() {
+        return getStatsTimer.record(() -> aggregates
+                .map(CustomerAggregates::stats)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer statistics are disabled")));
+    }
+
+    public Customer getCustomer(Long id) {
+        return getCustomerTimer.record(() -> selectCustomer(id), customer -> Outcome.FOUND);
     }
 
-    public Customer getCustomer(Integer id) {
+    private Customer selectCustomer(Long id) {
         return customerDAO.selectCustomerById(id)
                 .orElseThrow(
                         () -> new ResourceNotFoundException("There is no customer with ID = %s".formatted(id))
@@ -29,45 +206,166 @@ public class CustomerService {
     }
 
     public void addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
-        if (customerDAO.existsPersonWithEmail(customerRegistrationRequest.email())) {
+        addCustomerTimer.record(() -> insertCustomer(customerRegistrationRequest));
+    }
+
+    private void insertCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
+        // the unique email constraint is the guard, a separate existence check would only race with it
+        if (!customerDAO.insertCustomer(new CustomerMapper(customerRegistrationRequest).map())) {
             throw new DuplicateResourceException("Email already taken");
         }
-        customerDAO.insertCustomer(new CustomerMapper(customerRegistrationRequest).map());
     }
 
-    public void deleteCustomerById(Integer id) {
-        if (!customerDAO.existsPersonWithId(id)) {
+    public List<CustomerRegistrationResult> addCustomers(List<CustomerRegistrationRequest> requests) {
+        return addCustomersTimer.record(() -> insertCustomers(requests));
+    }
+
+    private List<CustomerRegistrationResult> insertCustomers(List<CustomerRegistrationRequest> requests) {
+        CustomerRegistrationResult[] results = new CustomerRegistrationResult[requests.size()];
+        Set<String> emails = new HashSet<>();
+        List<Customer> chunk = new ArrayList<>(bulkProperties.chunkSize());
+        List<Integer> chunkPositions = new ArrayList<>(bulkProperties.chunkSize());
+
+        for (int i = 0; i < requests.size(); i++) {
+            CustomerRegistrationRequest request = requests.get(i);
+            if (!isComplete(request)) {
+                results[i] = CustomerRegistrationResult.invalid(request.email());
+                continue;
+            }
+            // emails are unique ignoring case, like the lower(email) index
+            if (!emails.add(request.email().toLowerCase(Locale.ROOT))) {
+                results[i] = CustomerRegistrationResult.duplicate(request.email());
+                continue;
+            }
+            chunk.add(new CustomerMapper(request).map());
+            chunkPositions.add(i);
+            if (chunk.size() == bulkProperties.chunkSize()) {
+                insertChunk(chunk, chunkPositions, results);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, chunkPositions, results);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    // the columns are NOT NULL, one incomplete row would fail the statement of its whole chunk
+    static boolean isComplete(CustomerRegistrationRequest request) {
+        return request.name() != null && request.email() != null && request.age() != null;
+    }
+
+    private void insertChunk(List<Customer> chunk, List<Integer> positions, CustomerRegistrationResult[] results) {
+        customerDAO.insertCustomers(chunk);
+        for (int i = 0; i < chunk.size(); i++) {
+            Customer customer = chunk.get(i);
+            results[positions.get(i)] = customer.getId() != null
+                    ? CustomerRegistrationResult.created(customer)
+                    : CustomerRegistrationResult.duplicate(customer.getEmail());
+        }
+        chunk.clear();
+        positions.clear();
+    }
+
+    public CustomerImport importCustomers(Iterator<CustomerRegistrationRequest> requests) {
+        return importCustomersTimer.record(() -> runImport(requests));
+    }
+
+    private CustomerImport runImport(Iterator<CustomerRegistrationRequest> requests) {
+        CustomerImport customerImport = new CustomerImport();
+        runningImports.put(customerImport.getId(), customerImport);
+
+        Iterator<Customer> customers = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                boolean hasNext = requests.hasNext();
+                if (!hasNext) {
+                    customerImport.merging();
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Customer next() {
+                long rowsRead = customerImport.rowRead();
+                if (rowsRead % IMPORT_PROGRESS_LOG_INTERVAL == 0) {
+                    log.info("Import {}: {} rows read", customerImport.getId(), rowsRead);
+                }
+                return new CustomerMapper(requests.next()).map();
+            }
+        };
+
+        try {
+            customerImport.done(customerDAO.importCustomers(customers).total());
+            log.info("Import {}: {} rows read, {} inserted",
+                    customerImport.getId(), customerImport.getRowsRead(), customerImport.getRowsInserted());
+            return customerImport;
+        } catch (RuntimeException e) {
+            customerImport.failed();
+            throw e;
+        } finally {
+            runningImports.remove(customerImport.getId());
+        }
+    }
+
+    public Collection<CustomerImport> getRunningImports() {
+        return List.copyOf(runningImports.values());
+    }
+
+    public void deleteCustomerById(Long id) {
+        deleteCustomerByIdTimer.record(() -> deleteCustomer(id));
+    }
+
+    private void deleteCustomer(Long id) {
+        if (customerDAO.deleteCustomerById(id).isEmpty()) {
             throw new ResourceNotFoundException("There is no customer with ID = %s".formatted(id));
         }
-        customerDAO.deleteCustomerById(id);
     }
 
-    public void updateCustomer(Integer id, CustomerUpdateRequest request) {
+    public void updateCustomer(Long id, CustomerUpdateRequest request) {
+        updateCustomerTimer.record(() -> applyUpdate(id, request));
+    }
+
+    private void applyUpdate(Long id, CustomerUpdateRequest request) {
         var customer = getCustomer(id);
 
-        boolean changes = false;
+        // only the changed fields are set, so the DAO writes nothing else
+        var changes = new Customer();
+        changes.setId(customer.getId());
 
         if (request.email() != null && !request.email().equals(customer.getEmail())) {
-            if (customerDAO.existsPersonWithEmail(request.email())) {
+            // a customer may change the case of their own email
+            if (!request.email().equalsIgnoreCase(customer.getEmail())
+                    && customerDAO.existsPersonWithEmail(request.email())) {
                 throw new DuplicateResourceException("Email already taken");
             }
-            customer.setEmail(request.email());
-            changes = true;
+            changes.setEmail(request.email());
         }
         if (request.name() != null && !request.name().equals(customer.getName())) {
-            customer.setName(request.name());
-            changes = true;
+            changes.setName(request.name());
         }
         if (request.age() != null && !request.age().equals(customer.getAge())) {
-            customer.setAge(request.age());
-            changes = true;
+            changes.setAge(request.age());
         }
 
-        if (!changes) {
+        if (changes.getEmail() == null && changes.getName() == null && changes.getAge() == null) {
             throw new RequestValidationException("no data changes found");
         }
 
-        customerDAO.updateCustomer(customer);
+        Optional<Customer> previous;
+        try {
+            previous = customerDAO.updateCustomer(changes);
+        } catch (DataIntegrityViolationException e) {
+            // another request took the email between the check and the update
+            if (changes.getEmail() != null) {
+                throw new DuplicateResourceException("Email already taken");
+            }
+            throw e;
+        }
+        // another request deleted the customer between the read and the update
+        if (previous.isEmpty()) {
+            throw new ResourceNotFoundException("There is no customer with ID = %s".formatted(id));
+        }
     }
 
 }
@@ -0,0 +1,34 @@
+package com.amigoscode.customer;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @param ageHistogram    only the buckets that have customers, youngest first
+ * @param topEmailDomains most customers first
+ * @param reconciledAt    when the aggregates were last compared with the database
+ */
+public record CustomerStats(
+        long count,
+        List<AgeBucket> ageHistogram,
+        List<EmailDomainCount> topEmailDomains,
+        Instant reconciledAt
+) {
+
+    /**
+     * @param minAge inclusive
+     * @param maxAge inclusive
+     */
+    public record AgeBucket(
+            int minAge,
+            int maxAge,
+            long count
+    ) {
+    }
+
+    public record EmailDomainCount(
+            String domain,
+            long count
+    ) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.amigoscode.customer;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Keeps {@link CustomerAggregates} up to date with every write. Deletes and updates take out
+ * of the aggregates the row the DAO reports it deleted or replaced, imports add the counts
+ * of the rows the DAO reports it inserted, so no write reads the table beforehand.
+ */
+public class CustomerStatsDataAccessService implements CustomerDAO {
+
+    private final CustomerDAO delegate;
+    private final CustomerAggregates aggregates;
+
+    public CustomerStatsDataAccessService(CustomerDAO delegate, CustomerAggregates aggregates) {
+        this.delegate = delegate;
+        this.aggregates = aggregates;
+    }
+
+    @Override
+    public List<Customer> selectAllCustomers() {
+        return delegate.selectAllCustomers();
+    }
+
+    @Override
+    public List<Customer> selectCustomers(Long after, int limit) {
+        return delegate.selectCustomers(after, limit);
+    }
+
+    @Override
+    public Optional<Customer> selectCustomerById(Long id) {
+        return delegate.selectCustomerById(id);
+    }
+
+    @Override
+    public List<Customer> searchCustomers(CustomerSearch search, int limit) {
+        return delegate.searchCustomers(search, limit);
+    }
+
+    @Override
+    public List<CustomerMatch> findSimilarCustomers(String text, int limit) {
+        return delegate.findSimilarCustomers(text, limit);
+    }
+
+    @Override
+    public CustomerCounts countCustomers() {
+        return delegate.countCustomers();
+    }
+
+    @Override
+    public boolean insertCustomer(Customer customer) {
+        boolean inserted = delegate.insertCustomer(customer);
+        if (inserted) {
+            aggregates.added(customer);
+        }
+        return inserted;
+    }
+
+    @Override
+    public int insertCustomers(List<Customer> customers) {
+        int inserted = delegate.insertCustomers(customers);
+        // every backend sets the id of the customers it inserted, and only theirs
+        customers.stream()
+                .filter(customer -> customer.getId() != null)
+                .forEach(aggregates::added);
+        return inserted;
+    }
+
+    @Override
+    public boolean existsPersonWithEmail(String email) {
+        return delegate.existsPersonWithEmail(email);
+    }
+
+    @Override
+    public boolean existsPersonWithId(Long id) {
+        return delegate.existsPersonWithId(id);
+    }
+
+    @Override
+    public Optional<Customer> deleteCustomerById(Long id) {
+        Optional<Customer> deleted = delegate.deleteCustomerById(id);
+        deleted.ifPresent(aggregates::removed);
+        return deleted;
+    }
+
+    @Override
+    public Optional<Customer> updateCustomer(Customer customerToUpdate) {
+        Optional<Customer> previous = delegate.updateCustomer(customerToUpdate);
+        previous.ifPresent(customer -> {
+            Customer updated = new Customer(customer.getId(), customer.getName(), customer.getEmail(), customer.getAge());
+            if (customerToUpdate.getEmail() != null) {
+                updated.setEmail(customerToUpdate.getEmail());
+            }
+            if (customerToUpdate.getAge() != null) {
+                updated.setAge(customerToUpdate.getAge());
+            }
+            aggregates.changed(customer, updated);
+        });
+        return previous;
+    }
+
+    @Override
+    public void streamAllCustomers(Consumer<Customer> consumer) {
+        delegate.streamAllCustomers(consumer);
+    }
+
+    @Override
+    public CustomerCounts importCustomers(Iterator<Customer> customers) {
+        CustomerCounts inserted = delegate.importCustomers(customers);
+        aggregates.added(inserted);
+        return inserted;
+    }
+}
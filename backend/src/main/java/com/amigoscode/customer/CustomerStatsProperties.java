@@ -0,0 +1,15 @@
+package com.amigoscode.customer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "customer.stats")
+public record CustomerStatsProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10") int ageBucketWidth,
+        @DefaultValue("10") int topEmailDomains,
+        @DefaultValue("PT10M") Duration reconcileInterval
+) {
+}
@@ -0,0 +1,136 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.DuplicateResourceException;
+import com.amigoscode.exception.RequestValidationException;
+import com.amigoscode.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * One timer per outcome of an operation, registered up front so that recording a call is a
+ * {@link System#nanoTime()} pair and an array lookup, without building tags on the hot path.
+ * Histogram settings come from {@code management.metrics.distribution.*}.
+ * <p>
+ * Each call also runs in a span named {@code <spanPrefix>.<operation>}, carrying the same tags
+ * and the outcome. Whether it is exported is up to the tracer's sampler.
+ */
+final class OperationTimer {
+
+    enum Outcome {
+        SUCCESS,
+        FOUND,
+        NOT_FOUND,
+        DUPLICATE,
+        INVALID,
+        ERROR;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final Timer[] timers = new Timer[Outcome.values().length];
+    private final Tracer tracer;
+    private final String spanName;
+    private final Tag[] spanTags;
+
+    OperationTimer(MeterRegistry meterRegistry,
+                   Tracer tracer,
+                   String name,
+                   String spanPrefix,
+                   Tags tags,
+                   Outcome... outcomes) {
+        this.tracer = tracer;
+        this.spanName = spanPrefix + "." + tags.stream()
+                .filter(tag -> tag.getKey().equals("operation"))
+                .map(Tag::getValue)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("tags must contain an operation"));
+        this.spanTags = tags.stream().filter(tag -> !tag.getKey().equals("operation")).toArray(Tag[]::new);
+        register(meterRegistry, name, tags, Outcome.ERROR);
+        for (Outcome outcome : outcomes) {
+            register(meterRegistry, name, tags, outcome);
+        }
+    }
+
+    private void register(MeterRegistry meterRegistry, String name, Tags tags, Outcome outcome) {
+        timers[outcome.ordinal()] = Timer.builder(name)
+                .tags(tags)
+                .tag("outcome", outcome.tag)
+                .register(meterRegistry);
+    }
+
+    <T> T record(Supplier<T> call, Function<? super T, Outcome> outcome) {
+        Span span = tracer.nextSpan().name(spanName);
+        for (Tag tag : spanTags) {
+            span.tag(tag.getKey(), tag.getValue());
+        }
+        long start = System.nanoTime();
+        try (Tracer.SpanInScope scope = tracer.withSpan(span.start())) {
+            T result = call.get();
+            record(start, span, outcome.apply(result));
+            return result;
+        } catch (RuntimeException e) {
+            span.error(e);
+            record(start, span, outcomeOf(e));
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    <T> T record(Supplier<T> call) {
+        return record(call, result -> Outcome.SUCCESS);
+    }
+
+    void record(Runnable call) {
+        record(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private void record(long start, Span span, Outcome outcome) {
+        span.tag("outcome", outcome.tag);
+        Timer timer = timers[outcome.ordinal()];
+        if (timer == null) {
+            // an outcome the operation was not expected to have is still a failure worth counting
+            timer = timers[Outcome.ERROR.ordinal()];
+        }
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    static Outcome found(Optional<?> result) {
+        return result.isPresent() ? Outcome.FOUND : Outcome.NOT_FOUND;
+    }
+
+    static Outcome found(boolean result) {
+        return result ? Outcome.FOUND : Outcome.NOT_FOUND;
+    }
+
+    static Outcome inserted(boolean result) {
+        return result ? Outcome.SUCCESS : Outcome.DUPLICATE;
+    }
+
+    static Outcome outcomeOf(RuntimeException e) {
+        if (e instanceof ResourceNotFoundException) {
+            return Outcome.NOT_FOUND;
+        }
+        if (e instanceof DuplicateResourceException || e instanceof DataIntegrityViolationException) {
+            return Outcome.DUPLICATE;
+        }
+        if (e instanceof RequestValidationException) {
+            return Outcome.INVALID;
+        }
+        return Outcome.ERROR;
+    }
+}
@@ -0,0 +1,66 @@
+package com.amigoscode.customer;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * WebFlux variant of {@link CustomerController} for the {@code reactive} profile, with the
+ * same contract. The export is streamed straight from the database, so a slow client slows
+ * down the query instead of the customers piling up in memory.
+ */
+@RestController
+@RequiredArgsConstructor
+@Profile("reactive")
+@RequestMapping("api/v1/customers")
+public class ReactiveCustomerController {
+
+    private final ReactiveCustomerService customerService;
+
+    @GetMapping
+    public Mono<CustomerPage> getCustomers(@RequestParam(value = "after", required = false) Long after,
+                                           @RequestParam(value = "limit", required = false) Integer limit) {
+        return customerService.getCustomers(after, limit);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Customer> exportCustomers() {
+        return customerService.exportCustomers();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<Customer> getCustomer(@PathVariable("id") Long id) {
+        return customerService.getCustomer(id);
+    }
+
+    @PostMapping
+    public Mono<Void> registerCustomer(@RequestBody CustomerRegistrationRequest request) {
+        return customerService.addCustomer(request);
+    }
+
+    @PostMapping("/bulk")
+    public Flux<CustomerRegistrationResult> registerCustomers(@RequestBody List<CustomerRegistrationRequest> requests) {
+        return customerService.addCustomers(requests);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<CustomerImport> importCustomers(@RequestBody Flux<CustomerRegistrationRequest> requests) {
+        return customerService.importCustomers(requests);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<Void> deleteCustomer(@PathVariable("id") Long id) {
+        return customerService.deleteCustomerById(id);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<Void> updateCustomer(@PathVariable("id") Long id, @RequestBody CustomerUpdateRequest request) {
+        return customerService.updateCustomer(id, request);
+    }
+
+}
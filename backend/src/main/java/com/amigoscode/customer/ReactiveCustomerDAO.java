@@ -0,0 +1,22 @@
+package com.amigoscode.customer;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link CustomerDAO}, with the same semantics per operation.
+ */
+public interface ReactiveCustomerDAO {
+    Flux<Customer> selectAllCustomers();
+    Flux<Customer> selectCustomers(Long after, int limit);
+    Mono<Customer> selectCustomerById(Long id);
+    Mono<Boolean> insertCustomer(Customer customer);
+    Mono<Integer> insertCustomers(List<Customer> customers);
+    Mono<Long> importCustomers(Flux<Customer> customers);
+    Mono<Boolean> existsPersonWithEmail(String email);
+    Mono<Boolean> existsPersonWithId(Long id);
+    Mono<Boolean> deleteCustomerById(Long id);
+    Mono<Void> updateCustomer(Customer customerToUpdate);
+}
@@ -0,0 +1,150 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.DuplicateResourceException;
+import com.amigoscode.exception.RequestValidationException;
+import com.amigoscode.exception.ResourceNotFoundException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Non-blocking counterpart of {@link CustomerService}, with the same validation rules.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCustomerService {
+
+    private final ReactiveCustomerDAO customerDAO;
+    private final CustomerBulkProperties bulkProperties;
+
+    public ReactiveCustomerService(ReactiveCustomerDAO customerDAO, CustomerBulkProperties bulkProperties) {
+        this.customerDAO = customerDAO;
+        this.bulkProperties = bulkProperties;
+    }
+
+    public Mono<CustomerPage> getCustomers(Long after, Integer limit) {
+        // the same page sizes and cursor as the servlet API
+        return Mono.fromCallable(() -> CustomerService.pageSize(limit))
+                .flatMap(pageSize -> customerDAO.selectCustomers(after == null ? 0 : after, pageSize + 1)
+                        .collectList()
+                        .map(customers -> CustomerPage.of(customers, pageSize)));
+    }
+
+    public Flux<Customer> exportCustomers() {
+        return customerDAO.selectAllCustomers();
+    }
+
+    public Mono<Customer> getCustomer(Long id) {
+        return customerDAO.selectCustomerById(id)
+                .switchIfEmpty(Mono.error(
+                        () -> new ResourceNotFoundException("There is no customer with ID = %s".formatted(id))
+                ));
+    }
+
+    public Mono<Void> addCustomer(CustomerRegistrationRequest customerRegistrationRequest) {
+        return customerDAO.insertCustomer(new CustomerMapper(customerRegistrationRequest).map())
+                .flatMap(inserted -> inserted
+                        ? Mono.empty()
+                        : Mono.error(new DuplicateResourceException("Email already taken")));
+    }
+
+    // rejected is set for the requests that are not inserted at all
+    private record Registration(Customer customer, CustomerRegistrationResult rejected) {
+    }
+
+    public Flux<CustomerRegistrationResult> addCustomers(List<CustomerRegistrationRequest> requests) {
+        Set<String> emails = new HashSet<>();
+        // chunks are inserted one after another and keep the order of the requests
+        return Flux.fromIterable(requests)
+                .map(request -> new Registration(new CustomerMapper(request).map(), reject(request, emails)))
+                .buffer(bulkProperties.chunkSize())
+                .concatMap(chunk -> customerDAO.insertCustomers(chunk.stream()
+                                .filter(registration -> registration.rejected() == null)
+                                .map(Registration::customer)
+                                .toList())
+                        .thenMany(Flux.fromIterable(chunk))
+                        .map(ReactiveCustomerService::result));
+    }
+
+    private static CustomerRegistrationResult reject(CustomerRegistrationRequest request, Set<String> emails) {
+        if (!CustomerService.isComplete(request)) {
+            return CustomerRegistrationResult.invalid(request.email());
+        }
+        // emails are unique ignoring case, like the lower(email) index
+        if (!emails.add(request.email().toLowerCase(Locale.ROOT))) {
+            return CustomerRegistrationResult.duplicate(request.email());
+        }
+        return null;
+    }
+
+    private static CustomerRegistrationResult result(Registration registration) {
+        if (registration.rejected() != null) {
+            return registration.rejected();
+        }
+        Customer customer = registration.customer();
+        return customer.getId() != null
+                ? CustomerRegistrationResult.created(customer)
+                : CustomerRegistrationResult.duplicate(customer.getEmail());
+    }
+
+    public Mono<CustomerImport> importCustomers(Flux<CustomerRegistrationRequest> requests) {
+        return Mono.defer(() -> {
+            CustomerImport customerImport = new CustomerImport();
+            Flux<Customer> customers = requests
+                    .doOnNext(request -> customerImport.rowRead())
+                    .doOnComplete(customerImport::merging)
+                    .map(request -> new CustomerMapper(request).map());
+            return customerDAO.importCustomers(customers)
+                    .doOnNext(customerImport::done)
+                    .doOnError(e -> customerImport.failed())
+                    .thenReturn(customerImport);
+        });
+    }
+
+    public Mono<Void> deleteCustomerById(Long id) {
+        return customerDAO.deleteCustomerById(id)
+                .flatMap(deleted -> deleted
+                        ? Mono.empty()
+                        : Mono.error(new ResourceNotFoundException("There is no customer with ID = %s".formatted(id))));
+    }
+
+    public Mono<Void> updateCustomer(Long id, CustomerUpdateRequest request) {
+        return getCustomer(id).flatMap(customer -> {
+            var changes = new Customer();
+            changes.setId(customer.getId());
+            if (request.name() != null && !request.name().equals(customer.getName())) {
+                changes.setName(request.name());
+            }
+            if (request.age() != null && !request.age().equals(customer.getAge())) {
+                changes.setAge(request.age());
+            }
+            boolean emailChanged = request.email() != null && !request.email().equals(customer.getEmail());
+            if (!emailChanged && changes.getName() == null && changes.getAge() == null) {
+                return Mono.error(new RequestValidationException("no data changes found"));
+            }
+            if (!emailChanged) {
+                return customerDAO.updateCustomer(changes);
+            }
+
+            changes.setEmail(request.email());
+            // a customer may change the case of their own email
+            Mono<Boolean> taken = request.email().equalsIgnoreCase(customer.getEmail())
+                    ? Mono.just(false)
+                    : customerDAO.existsPersonWithEmail(request.email());
+            return taken
+                    .flatMap(exists -> exists
+                            ? Mono.error(new DuplicateResourceException("Email already taken"))
+                            : customerDAO.updateCustomer(changes))
+                    // another request took the email between the check and the update
+                    .onErrorMap(DataIntegrityViolationException.class,
+                            e -> new DuplicateResourceException("Email already taken"));
+        });
+    }
+}
@@ -0,0 +1,135 @@
+package com.amigoscode.customer;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe inverted index from trigrams to customer ids, the in-memory counterpart of a
+ * pg_trgm GIN index. Trigrams and similarity are computed the way pg_trgm computes them, so
+ * the list DAO ranks fuzzy matches exactly like PostgreSQL does.
+ */
+class TrigramIndex {
+
+    /**
+     * The default of pg_trgm.similarity_threshold, which the {@code %} operator compares with.
+     */
+    static final float SIMILARITY_THRESHOLD = 0.3f;
+
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    /**
+     * Like pg_trgm's show_trgm: every run of letters and digits is lower-cased, padded with two
+     * spaces in front and one behind, and cut into overlapping three character pieces.
+     */
+    static Set<String> trigrams(String text) {
+        Set<String> trigrams = new HashSet<>();
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < lowerCase.length()) {
+            if (!Character.isLetterOrDigit(lowerCase.codePointAt(i))) {
+                i += Character.charCount(lowerCase.codePointAt(i));
+                continue;
+            }
+            int start = i;
+            while (i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.codePointAt(i))) {
+                i += Character.charCount(lowerCase.codePointAt(i));
+            }
+            int[] word = ("  " + lowerCase.substring(start, i) + " ").codePoints().toArray();
+            for (int j = 0; j + 3 <= word.length; j++) {
+                trigrams.add(new String(word, j, 3));
+            }
+        }
+        return trigrams;
+    }
+
+    /**
+     * Shared trigrams divided by distinct trigrams of both, in float like pg_trgm's similarity.
+     */
+    static float similarity(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        Set<String> smaller = a.size() <= b.size() ? a : b;
+        Set<String> larger = smaller == a ? b : a;
+        int shared = 0;
+        for (String trigram : smaller) {
+            if (larger.contains(trigram)) {
+                shared++;
+            }
+        }
+        return (float) shared / (a.size() + b.size() - shared);
+    }
+
+    void add(Long id, String text) {
+        trigrams(text).forEach(trigram -> addPosting(trigram, id));
+    }
+
+    void remove(Long id, String text) {
+        trigrams(text).forEach(trigram -> removePosting(trigram, id));
+    }
+
+    /**
+     * Adds the new trigrams before removing the old ones, so that the trigrams both texts
+     * share stay findable throughout.
+     */
+    void replace(Long id, String oldText, String newText) {
+        if (oldText.equals(newText)) {
+            return;
+        }
+        Set<String> added = trigrams(newText);
+        added.forEach(trigram -> addPosting(trigram, id));
+        trigrams(oldText).stream()
+                .filter(trigram -> !added.contains(trigram))
+                .forEach(trigram -> removePosting(trigram, id));
+    }
+
+    private void addPosting(String trigram, Long id) {
+        // compute, so that a concurrent remove cannot drop the set this id is added to
+        postings.compute(trigram, (key, ids) -> {
+            Set<Long> updated = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            updated.add(id);
+            return updated;
+        });
+    }
+
+    private void removePosting(String trigram, Long id) {
+        postings.computeIfPresent(trigram, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Ids whose text shares at least {@code minShared} of the given trigrams. Like a GIN index
+     * this may return ids that are not similar enough, the caller has to recheck them.
+     */
+    Set<Long> candidates(Set<String> trigrams, int minShared) {
+        Map<Long, Integer> shared = new HashMap<>();
+        for (String trigram : trigrams) {
+            Set<Long> ids = postings.get(trigram);
+            if (ids != null) {
+                ids.forEach(id -> shared.merge(id, 1, Integer::sum));
+            }
+        }
+        Set<Long> candidates = new HashSet<>();
+        shared.forEach((id, count) -> {
+            if (count >= minShared) {
+                candidates.add(id);
+            }
+        });
+        return candidates;
+    }
+
+    /**
+     * Similarity can only reach the threshold if at least this many of the query's trigrams are
+     * shared, as it is never more than shared / query trigrams. Rounded down, to be safe with
+     * the float arithmetic of the similarity itself.
+     */
+    static int minShared(int queryTrigrams) {
+        return Math.max(1, (int) (SIMILARITY_THRESHOLD * queryTrigrams));
+    }
+}
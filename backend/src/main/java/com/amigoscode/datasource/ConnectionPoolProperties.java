@@ -0,0 +1,37 @@
+package com.amigoscode.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Inputs for the Hikari pools built by {@link ConnectionPools}. Anything set explicitly
+ * under {@code spring.datasource.hikari} still wins over the values derived from these.
+ *
+ * @param databaseCores cores of the database server, when unset the pool is sized by the expected load
+ *                      or keeps Hikari's default of 10
+ * @param expectedRequestsPerSecond expected database calls per second, zero when unknown
+ * @param expectedConnectionHoldTime how long one call keeps its connection
+ * @param maxThreadsPerConnection request threads per pooled connection tolerated by the startup check, by
+ *                                default the 200 Tomcat threads sharing Hikari's 10 connections
+ */
+@ConfigurationProperties(prefix = "customer.pool")
+public record ConnectionPoolProperties(
+        Integer databaseCores,
+        @DefaultValue("1") int effectiveSpindleCount,
+        @DefaultValue("0") double expectedRequestsPerSecond,
+        @DefaultValue("10ms") Duration expectedConnectionHoldTime,
+        @DefaultValue("20") int maxThreadsPerConnection,
+        @DefaultValue("1") int prepareThreshold,
+        @DefaultValue("256") int preparedStatementCacheQueries,
+        @DefaultValue("5") int preparedStatementCacheSizeMib
+) {
+
+    /**
+     * Database calls in progress at any moment under the expected load, zero when it is unknown.
+     */
+    public double expectedConcurrentCalls() {
+        return expectedRequestsPerSecond * expectedConnectionHoldTime.toNanos() / 1e9;
+    }
+}
@@ -0,0 +1,94 @@
+package com.amigoscode.datasource;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compares the size of every Hikari pool with the number of requests the servlet container
+ * can run at once and logs a warning when the two are far apart. With virtual threads there
+ * is no such limit, the pool is compared with the expected load instead. Pool waits themselves
+ * are in the {@code hikaricp.connections.acquire} and {@code hikaricp.connections.pending} metrics.
+ */
+@Slf4j
+@Component
+public class ConnectionPoolSelfCheck {
+
+    static final int DEFAULT_TOMCAT_MAX_THREADS = 200;
+
+    private final ObjectProvider<DataSource> dataSource;
+    private final ConnectionPoolProperties properties;
+    private final Environment environment;
+
+    public ConnectionPoolSelfCheck(ObjectProvider<DataSource> dataSource,
+                                   ConnectionPoolProperties properties,
+                                   Environment environment) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+        this.environment = environment;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void check() {
+        if (!"servlet".equals(environment.getProperty("spring.main.web-application-type", "servlet"))) {
+            return;
+        }
+        boolean virtualThreads = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        int maxThreads = environment.getProperty("server.tomcat.threads.max", Integer.class, DEFAULT_TOMCAT_MAX_THREADS);
+        for (HikariDataSource pool : pools(dataSource.getIfAvailable())) {
+            log.info("Connection pool {}: maximum-pool-size {}, connection-timeout {} ms, max-lifetime {} ms",
+                    pool.getPoolName(), pool.getMaximumPoolSize(), pool.getConnectionTimeout(), pool.getMaxLifetime());
+            check(pool.getPoolName(), pool.getMaximumPoolSize(), maxThreads, virtualThreads,
+                    properties.maxThreadsPerConnection(), properties.expectedConcurrentCalls())
+                    .forEach(log::warn);
+        }
+    }
+
+    static List<String> check(String poolName,
+                              int poolSize,
+                              int maxThreads,
+                              boolean virtualThreads,
+                              int maxThreadsPerConnection,
+                              double expectedConcurrentCalls) {
+        List<String> warnings = new ArrayList<>();
+        if (virtualThreads) {
+            // the connections are the only limit on concurrent database work, which is fine unless the load needs more
+            if (expectedConcurrentCalls > poolSize) {
+                warnings.add(("Connection pool %s: virtual threads are enabled and the expected load keeps %.0f "
+                        + "connections busy, more than its %d, expect requests to queue on the pool")
+                        .formatted(poolName, expectedConcurrentCalls, poolSize));
+            }
+        } else if (poolSize > maxThreads) {
+            warnings.add(("Connection pool %s: %d connections but only %d request threads, "
+                    + "the extra connections are never used").formatted(poolName, poolSize, maxThreads));
+        } else if (maxThreads > poolSize * maxThreadsPerConnection) {
+            warnings.add(("Connection pool %s: %d request threads share %d connections, "
+                    + "more than %d per connection, expect requests to wait for a connection")
+                    .formatted(poolName, maxThreads, poolSize, maxThreadsPerConnection));
+        }
+        return warnings;
+    }
+
+    private static List<HikariDataSource> pools(DataSource dataSource) {
+        if (dataSource == null) {
+            return List.of();
+        }
+        ReplicaRoutingDataSource routing = ReplicaRoutingDataSource.unwrap(dataSource);
+        List<DataSource> candidates = routing != null ? routing.targets() : List.of(dataSource);
+        return candidates.stream()
+                .map(candidate -> DataSourceUnwrapper.unwrap(candidate, HikariConfigMXBean.class, HikariDataSource.class))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
@@ -0,0 +1,57 @@
+package com.amigoscode.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+/**
+ * Builds the Hikari pools of the application with a derived size, the PostgreSQL
+ * driver's server-side statement cache switched on and batched inserts rewritten
+ * into multi-row statements.
+ */
+public final class ConnectionPools {
+
+    static final int MINIMUM_POOL_SIZE = 2;
+    // Hikari's own default, for when neither the database server nor the load is known
+    static final int DEFAULT_POOL_SIZE = 10;
+    // bursts arrive faster than the average rate the estimate is based on
+    private static final double BURST_HEADROOM = 2.0;
+
+    private ConnectionPools() {
+    }
+
+    public static HikariDataSource create(DataSourceProperties properties,
+                                          ConnectionPoolProperties poolProperties,
+                                          String url,
+                                          String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        pool.setPoolName(name);
+        pool.setMaximumPoolSize(maximumPoolSize(poolProperties));
+        pool.addDataSourceProperty("prepareThreshold", poolProperties.prepareThreshold());
+        pool.addDataSourceProperty("preparedStatementCacheQueries", poolProperties.preparedStatementCacheQueries());
+        pool.addDataSourceProperty("preparedStatementCacheSizeMiB", poolProperties.preparedStatementCacheSizeMib());
+        pool.addDataSourceProperty("reWriteBatchedInserts", true);
+        return pool;
+    }
+
+    /**
+     * The database can only work on about {@code cores * 2 + spindles} queries at once, more
+     * connections just queue inside Postgres. When the expected load is known the pool is
+     * shrunk to what it needs by Little's law, connections in use = arrival rate x hold time.
+     * The cores are those of the database server, which this JVM cannot see, so without them
+     * the pool is sized by the load alone or keeps Hikari's default.
+     */
+    static int maximumPoolSize(ConnectionPoolProperties properties) {
+        Integer cores = properties.databaseCores();
+        int capacity = cores != null
+                ? Math.max(MINIMUM_POOL_SIZE, cores * 2 + properties.effectiveSpindleCount())
+                : Integer.MAX_VALUE;
+        if (properties.expectedRequestsPerSecond() <= 0) {
+            return cores != null ? capacity : DEFAULT_POOL_SIZE;
+        }
+        int demand = (int) Math.ceil(properties.expectedConcurrentCalls() * BURST_HEADROOM);
+        return Math.max(MINIMUM_POOL_SIZE, Math.min(capacity, demand));
+    }
+}
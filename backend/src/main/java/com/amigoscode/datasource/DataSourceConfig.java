@@ -0,0 +1,23 @@
+package com.amigoscode.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The single primary pool used when no replicas are configured, see {@link ReplicaDataSourceConfig}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "customer.replicas", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties,
+                                       ConnectionPoolProperties poolProperties) {
+        return ConnectionPools.create(properties, poolProperties, properties.determineUrl(), ReplicaRoutingDataSource.PRIMARY);
+    }
+}
@@ -0,0 +1,69 @@
+package com.amigoscode.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured pool with a {@link ReplicaRoutingDataSource} when
+ * {@code customer.replicas.enabled} is set. Flyway, JPA and JDBC keep using the primary
+ * unless a caller opts into a replica through {@link ReplicaRoutingContext}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "customer.replicas", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties dataSourceProperties,
+                                               ConnectionPoolProperties poolProperties,
+                                               ReplicaProperties replicaProperties,
+                                               Environment environment,
+                                               MeterRegistry meterRegistry) {
+        List<String> urls = replicaProperties.urls();
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("customer.replicas.enabled is set but customer.replicas.urls is empty");
+        }
+        DataSource primary = pool(dataSourceProperties, poolProperties, environment, meterRegistry,
+                dataSourceProperties.determineUrl(), ReplicaRoutingDataSource.PRIMARY, false);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String name = "replica-" + i;
+            replicas.put(name, pool(dataSourceProperties, poolProperties, environment, meterRegistry,
+                    urls.get(i), name, true));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, meterRegistry);
+    }
+
+    @Bean
+    public ReplicaHealthCheck replicaHealthCheck(DataSource dataSource) {
+        // the bean is proxied for observations by now, the check needs the routing data source inside
+        return new ReplicaHealthCheck(ReplicaRoutingDataSource.unwrap(dataSource));
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties,
+                                         ConnectionPoolProperties poolProperties,
+                                         Environment environment,
+                                         MeterRegistry meterRegistry,
+                                         String url,
+                                         String name,
+                                         boolean readOnly) {
+        HikariDataSource pool = ConnectionPools.create(properties, poolProperties, url, name);
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setReadOnly(readOnly);
+        // the pools are not beans, so Boot's hikaricp.* metrics binder never sees them
+        pool.setMetricRegistry(meterRegistry);
+        return pool;
+    }
+}
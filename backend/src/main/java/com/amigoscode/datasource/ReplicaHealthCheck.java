@@ -0,0 +1,22 @@
+package com.amigoscode.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Schedules {@link ReplicaRoutingDataSource#checkReplicas()}. The data source bean is wrapped
+ * in a proxy for JDBC observations, and the scheduler only looks for {@code @Scheduled}
+ * methods on the proxy, so the check needs a bean of its own.
+ */
+public class ReplicaHealthCheck {
+
+    private final ReplicaRoutingDataSource dataSource;
+
+    public ReplicaHealthCheck(ReplicaRoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Scheduled(fixedDelayString = "${customer.replicas.health-check-interval:PT10S}")
+    public void checkReplicas() {
+        dataSource.checkReplicas();
+    }
+}
@@ -0,0 +1,21 @@
+package com.amigoscode.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas of the {@code spring.datasource} primary. Replicas share the primary's
+ * credentials and {@code spring.datasource.hikari} pool settings.
+ */
+@ConfigurationProperties(prefix = "customer.replicas")
+public record ReplicaProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue List<String> urls,
+        @DefaultValue("PT10S") Duration healthCheckInterval,
+        @DefaultValue("PT5S") Duration readYourWritesWindow,
+        @DefaultValue("100000") long maximumStickyKeys
+) {
+}
@@ -0,0 +1,41 @@
+package com.amigoscode.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the current thread's work as read only, which lets {@link ReplicaRoutingDataSource}
+ * hand out a replica connection. It only takes effect when the connection is acquired inside
+ * {@link #readOnly(Supplier)}, a connection already bound to a transaction keeps its target.
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    public static <T> T readOnly(Supplier<T> work) {
+        Boolean previous = READ_ONLY.get();
+        READ_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                READ_ONLY.remove();
+            } else {
+                READ_ONLY.set(previous);
+            }
+        }
+    }
+
+    public static void readOnly(Runnable work) {
+        readOnly(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static boolean isReadOnly() {
+        return READ_ONLY.get() != null;
+    }
+}
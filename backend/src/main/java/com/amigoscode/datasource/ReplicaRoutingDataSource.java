@@ -0,0 +1,141 @@
+package com.amigoscode.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out primary connections, except inside {@link ReplicaRoutingContext#readOnly} where
+ * the healthy replicas take turns. Falls back to the primary when every replica is down.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final Map<String, Counter> routed = new HashMap<>();
+    private final Counter fallbacks;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<String> healthy;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    Map<String, DataSource> replicas,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.healthy = List.copyOf(this.replicas.keySet());
+
+        Map<Object, Object> targets = new HashMap<>(this.replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        for (Object target : targets.keySet()) {
+            routed.put((String) target, Counter.builder("customer.datasource.routing")
+                    .tag("target", (String) target)
+                    .register(meterRegistry));
+        }
+        this.fallbacks = Counter.builder("customer.datasource.routing.fallback")
+                .description("Read-only connections served by the primary because no replica was healthy")
+                .register(meterRegistry);
+        Gauge.builder("customer.datasource.replicas.healthy", this, dataSource -> dataSource.healthy.size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * The routing data source behind {@code dataSource}, which may be wrapped by the JDBC
+     * tracing proxy, or null if there is none. Boot's DataSourceUnwrapper only asks a JDBC
+     * wrapper for interfaces, this is a class.
+     */
+    public static ReplicaRoutingDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(ReplicaRoutingDataSource.class)
+                    ? dataSource.unwrap(ReplicaRoutingDataSource.class)
+                    : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target = route();
+        routed.get(target).increment();
+        return target;
+    }
+
+    private String route() {
+        if (!ReplicaRoutingContext.isReadOnly()) {
+            return PRIMARY;
+        }
+        List<String> candidates = healthy;
+        if (candidates.isEmpty()) {
+            fallbacks.increment();
+            return PRIMARY;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    public List<DataSource> targets() {
+        List<DataSource> targets = new ArrayList<>();
+        targets.add(primary);
+        targets.addAll(replicas.values());
+        return targets;
+    }
+
+    List<String> healthyReplicas() {
+        return healthy;
+    }
+
+    /**
+     * Takes the replicas that fail a connection check out of rotation and puts the ones that
+     * pass back in, run by {@link ReplicaHealthCheck}.
+     */
+    public void checkReplicas() {
+        List<String> up = replicas.entrySet().stream()
+                .filter(replica -> isValid(replica.getKey(), replica.getValue()))
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!up.equals(healthy)) {
+            log.info("Healthy replicas changed from {} to {}", healthy, up);
+        }
+        healthy = up;
+    }
+
+    private static boolean isValid(String name, DataSource replica) {
+        try (Connection connection = replica.getConnection()) {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException | RuntimeException e) {
+            // Hikari starts a pool on its first connection and throws unchecked when it cannot
+            log.warn("Replica {} failed its health check: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
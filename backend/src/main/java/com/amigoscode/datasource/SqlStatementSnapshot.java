@@ -0,0 +1,14 @@
+package com.amigoscode.datasource;
+
+public record SqlStatementSnapshot(
+        String statement,
+        long calls,
+        long errors,
+        double totalMillis,
+        double meanMillis,
+        double maxMillis,
+        double p50Millis,
+        double p99Millis,
+        long rows
+) {
+}
@@ -0,0 +1,60 @@
+package com.amigoscode.datasource;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of one normalized statement. Latencies are kept in microseconds.
+ */
+class SqlStatementStatistics {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final String statement;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+    private final LongAdder rows = new LongAdder();
+    private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 2);
+
+    SqlStatementStatistics(String statement) {
+        this.statement = statement;
+    }
+
+    void record(long elapsedNanos, boolean success, long rowsAffected) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), HIGHEST_TRACKABLE_MICROS);
+        calls.increment();
+        if (!success) {
+            errors.increment();
+        }
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+        rows.add(rowsAffected);
+        latency.recordValue(micros);
+    }
+
+    void rowFetched() {
+        rows.increment();
+    }
+
+    SqlStatementSnapshot snapshot() {
+        long count = calls.sum();
+        long total = totalMicros.sum();
+        return new SqlStatementSnapshot(
+                statement,
+                count,
+                errors.sum(),
+                total / 1000.0,
+                count == 0 ? 0 : total / 1000.0 / count,
+                maxMicros.get() / 1000.0,
+                latency.getValueAtPercentile(50) / 1000.0,
+                latency.getValueAtPercentile(99) / 1000.0,
+                rows.sum()
+        );
+    }
+}
@@ -0,0 +1,191 @@
+package com.amigoscode.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.lang.reflect.Array;
+import java.sql.ResultSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregates every statement that goes through the proxied {@code DataSource}, JdbcTemplate and
+ * Hibernate alike, by its normalized text. Rows are counted from update counts and from
+ * {@link ResultSet#next()} calls on the thread that ran the query.
+ */
+@Slf4j
+public class SqlStatistics implements QueryExecutionListener, MethodExecutionListener {
+
+    static final String OTHER = "<other>";
+
+    private static final String START = SqlStatistics.class.getName() + ".start";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    private final SqlStatisticsProperties properties;
+    private final long slowQueryThresholdNanos;
+    private final Map<String, SqlStatementStatistics> statements = new ConcurrentHashMap<>();
+    // raw text to normalized text, dynamic SQL with inlined literals has many raw texts per statement
+    private final Cache<String, String> normalized;
+    private final ThreadLocal<SqlStatementStatistics> fetching = new ThreadLocal<>();
+
+    public SqlStatistics(SqlStatisticsProperties properties) {
+        this.properties = properties;
+        this.slowQueryThresholdNanos = properties.slowQueryThreshold().toNanos();
+        this.normalized = Caffeine.newBuilder()
+                .maximumSize(properties.maximumStatements())
+                .build();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // the proxy only measures milliseconds, most of our statements take less
+        execInfo.addCustomValue(START, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START, Long.class);
+        long elapsedNanos = start == null ? 0 : System.nanoTime() - start;
+        long rows = rowsAffected(execInfo.getResult());
+
+        // a plain Statement batch may mix statements, they share its time and rows are not split
+        int queries = queryInfoList.size();
+        SqlStatementStatistics last = null;
+        for (QueryInfo queryInfo : queryInfoList) {
+            last = statistics(queryInfo.getQuery());
+            last.record(elapsedNanos / queries, execInfo.isSuccess(), queries == 1 ? rows : 0);
+        }
+        if (execInfo.getResult() instanceof ResultSet && last != null) {
+            fetching.set(last);
+        }
+
+        if (elapsedNanos >= slowQueryThresholdNanos) {
+            log.warn("Slow SQL took {} ms, batch size {}: {} parameters {}",
+                    elapsedNanos / 1_000_000,
+                    execInfo.isBatch() ? execInfo.getBatchSize() : 1,
+                    queryInfoList.stream().map(query -> normalize(query.getQuery())).toList(),
+                    queryInfoList.stream().map(SqlStatistics::parameterShapes).toList());
+        } else if (sampled()) {
+            log.info("SQL took {} us, {} rows: {}",
+                    elapsedNanos / 1_000,
+                    rows,
+                    queryInfoList.stream().map(query -> normalize(query.getQuery())).toList());
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (!(executionContext.getTarget() instanceof ResultSet)) {
+            return;
+        }
+        String method = executionContext.getMethod().getName();
+        if (method.equals("next") && Boolean.TRUE.equals(executionContext.getResult())) {
+            SqlStatementStatistics statistics = fetching.get();
+            if (statistics != null) {
+                statistics.rowFetched();
+            }
+        } else if (method.equals("close")) {
+            fetching.remove();
+        }
+    }
+
+    private boolean sampled() {
+        double rate = properties.logSampleRate();
+        return rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    public List<SqlStatementSnapshot> top(Comparator<SqlStatementSnapshot> order, int limit) {
+        return statements.values().stream()
+                .map(SqlStatementStatistics::snapshot)
+                .sorted(order.reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        statements.clear();
+        normalized.invalidateAll();
+    }
+
+    private SqlStatementStatistics statistics(String sql) {
+        String statement = normalized.get(sql, SqlStatistics::normalize);
+        SqlStatementStatistics statistics = statements.get(statement);
+        if (statistics != null) {
+            return statistics;
+        }
+        if (statements.size() >= properties.maximumStatements()) {
+            statement = OTHER;
+        }
+        return statements.computeIfAbsent(statement, SqlStatementStatistics::new);
+    }
+
+    static String normalize(String sql) {
+        String statement = WHITESPACE.matcher(sql).replaceAll(" ").trim();
+        statement = STRING_LITERAL.matcher(statement).replaceAll("?");
+        statement = NUMBER_LITERAL.matcher(statement).replaceAll("?");
+        return IN_LIST.matcher(statement).replaceAll("IN (?)");
+    }
+
+    private static long rowsAffected(Object result) {
+        if (result instanceof Integer count) {
+            return Math.max(count, 0);
+        }
+        if (result instanceof int[] counts) {
+            long rows = 0;
+            for (int count : counts) {
+                rows += Math.max(count, 0);
+            }
+            return rows;
+        }
+        return 0;
+    }
+
+    // types and sizes only, the values may be personal data
+    static String parameterShapes(QueryInfo queryInfo) {
+        List<List<ParameterSetOperation>> parameters = queryInfo.getParametersList();
+        if (parameters.isEmpty()) {
+            return "[]";
+        }
+        String shape = parameters.get(0).stream()
+                .map(SqlStatistics::shape)
+                .collect(Collectors.joining(", ", "[", "]"));
+        return parameters.size() == 1 ? shape : shape + " x " + parameters.size();
+    }
+
+    private static String shape(ParameterSetOperation operation) {
+        if (ParameterSetOperation.isSetNullParameterOperation(operation)) {
+            return "null";
+        }
+        Object[] args = operation.getArgs();
+        Object value = args.length > 1 ? args[1] : null;
+        if (value == null) {
+            return "null";
+        }
+        if (value.getClass().isArray()) {
+            return value.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(value) + "]";
+        }
+        if (value instanceof java.sql.Array) {
+            return "array";
+        }
+        return value.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,24 @@
+package com.amigoscode.datasource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The JDBC proxy set up for tracing hands every statement to {@link SqlStatistics}, because
+ * it picks up all {@code QueryExecutionListener} and {@code MethodExecutionListener} beans.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "customer.sql", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatisticsConfig {
+
+    @Bean
+    public SqlStatistics sqlStatistics(SqlStatisticsProperties properties) {
+        return new SqlStatistics(properties);
+    }
+
+    @Bean
+    public SqlStatisticsEndpoint sqlStatisticsEndpoint(SqlStatistics sqlStatistics) {
+        return new SqlStatisticsEndpoint(sqlStatistics);
+    }
+}
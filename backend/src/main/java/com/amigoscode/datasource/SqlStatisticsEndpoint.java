@@ -0,0 +1,52 @@
+package com.amigoscode.datasource;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/sqlstats?sort=total&limit=20} lists the most expensive statements,
+ * {@code DELETE /actuator/sqlstats} starts the statistics over.
+ */
+@Endpoint(id = "sqlstats")
+public class SqlStatisticsEndpoint {
+
+    static final int DEFAULT_LIMIT = 20;
+
+    private static final Map<String, Comparator<SqlStatementSnapshot>> ORDERS = Map.of(
+            "total", Comparator.comparingDouble(SqlStatementSnapshot::totalMillis),
+            "mean", Comparator.comparingDouble(SqlStatementSnapshot::meanMillis),
+            "max", Comparator.comparingDouble(SqlStatementSnapshot::maxMillis),
+            "p99", Comparator.comparingDouble(SqlStatementSnapshot::p99Millis),
+            "calls", Comparator.comparingLong(SqlStatementSnapshot::calls),
+            "rows", Comparator.comparingLong(SqlStatementSnapshot::rows),
+            "errors", Comparator.comparingLong(SqlStatementSnapshot::errors)
+    );
+
+    private final SqlStatistics statistics;
+
+    public SqlStatisticsEndpoint(SqlStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @ReadOperation
+    public List<SqlStatementSnapshot> top(@Nullable String sort, @Nullable Integer limit) {
+        Comparator<SqlStatementSnapshot> order = ORDERS.get(sort == null ? "total" : sort);
+        if (order == null) {
+            String message = "sort must be one of %s".formatted(ORDERS.keySet());
+            throw new InvalidEndpointRequestException(message, message);
+        }
+        return statistics.top(order, limit == null ? DEFAULT_LIMIT : limit);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.reset();
+    }
+}
@@ -0,0 +1,20 @@
+package com.amigoscode.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param slowQueryThreshold statements running longer are logged with their bind parameter shapes
+ * @param maximumStatements distinct statements tracked, later ones are counted under {@link SqlStatistics#OTHER}
+ * @param logSampleRate share of the remaining statements that are logged, between 0 and 1
+ */
+@ConfigurationProperties(prefix = "customer.sql")
+public record SqlStatisticsProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("200ms") Duration slowQueryThreshold,
+        @DefaultValue("500") int maximumStatements,
+        @DefaultValue("0") double logSampleRate
+) {
+}
@@ -0,0 +1,56 @@
+package com.amigoscode.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Map;
+
+@Configuration
+public class LoggingConfig {
+
+    // carries the correlation id into async MVC work such as the streamed export
+    @Bean
+    public TaskDecorator mdcTaskDecorator() {
+        return task -> {
+            Map<String, String> context = MDC.getCopyOfContextMap();
+            return () -> {
+                Map<String, String> previous = MDC.getCopyOfContextMap();
+                if (context == null) {
+                    MDC.clear();
+                } else {
+                    MDC.setContextMap(context);
+                }
+                try {
+                    task.run();
+                } finally {
+                    if (previous == null) {
+                        MDC.clear();
+                    } else {
+                        MDC.setContextMap(previous);
+                    }
+                }
+            };
+        };
+    }
+
+    // a queue that stays near zero means events are being dropped
+    @Bean
+    public MeterBinder asyncLoggingMetrics() {
+        return registry -> {
+            if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context
+                    && context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).getAppender("ASYNC")
+                    instanceof AsyncAppender appender) {
+                Gauge.builder("logging.async.queue.remaining", appender, AsyncAppender::getRemainingCapacity)
+                        .description("Free slots in the async logging queue")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,2 @@
+-- JPA allocates ids in blocks of 50 from a single nextval, JDBC and R2DBC inserts keep using the column default
+ALTER SEQUENCE customer_id_seq INCREMENT BY 50;
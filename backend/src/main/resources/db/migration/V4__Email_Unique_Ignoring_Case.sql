@@ -0,0 +1,7 @@
+-- Emails are unique ignoring case. A unique constraint cannot be declared on lower(email),
+-- so a unique expression index takes its place. Including email lets existence checks
+-- run as index-only scans. Emails that only differ in case must be merged before this runs.
+CREATE UNIQUE INDEX cons_customer_email_lower_unique ON customer (lower(email)) INCLUDE (email);
+
+ALTER TABLE customer
+    DROP CONSTRAINT cons_customer_email_unique;
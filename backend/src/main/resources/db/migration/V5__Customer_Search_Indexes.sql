@@ -0,0 +1,14 @@
+-- Indexes for GET /api/v1/customers/search. Each one leads with a filter or sort key and ends
+-- with id, so a page is read in order and the next page starts where the last one stopped.
+
+-- name prefix filter, lower(name) LIKE 'abc%'
+CREATE INDEX customer_name_prefix_idx ON customer (lower(name) text_pattern_ops);
+
+-- ordering and keyset pagination by name
+CREATE INDEX customer_name_id_idx ON customer (name, id);
+
+-- age range filter, ordering and keyset pagination by age
+CREATE INDEX customer_age_id_idx ON customer (age, id);
+
+-- email domain filter, split_part(lower(email), '@', 2) = 'example.com'
+CREATE INDEX customer_email_domain_id_idx ON customer (split_part(lower(email), '@', 2), id);
@@ -0,0 +1,9 @@
+-- Indexes for GET /api/v1/customers/search/similar, which finds customers by misspelled names
+-- or emails with pg_trgm's % operator. GIN rather than GiST: the columns change far less often
+-- than they are searched, and GIN lookups are faster.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- pg_trgm lower-cases by itself, so the plain columns are indexed
+CREATE INDEX customer_name_trgm_idx ON customer USING gin (name gin_trgm_ops);
+
+CREATE INDEX customer_email_trgm_idx ON customer USING gin (email gin_trgm_ops);
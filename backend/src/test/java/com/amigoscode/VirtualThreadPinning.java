@@ -0,0 +1,34 @@
+package com.amigoscode;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+public final class VirtualThreadPinning {
+
+    private VirtualThreadPinning() {
+    }
+
+    /**
+     * Runs the work with a virtual-thread-per-task executor and returns every time a
+     * virtual thread blocked while pinned to its carrier.
+     */
+    public static List<RecordedEvent> record(Consumer<ExecutorService> work) {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withoutThreshold();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                work.accept(executor);
+            }
+            recording.stop();
+        }
+        return pinned;
+    }
+}
@@ -0,0 +1,122 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.Main;
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDAO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Throughput of {@code GET /api/v1/customers/{id}} as the number of concurrent connections
+ * grows, with requests handled on Tomcat's platform thread pool or on virtual threads.
+ * Every JMH thread is one client connection, so run it over a range of thread counts:
+ * {@code mvn -Pbenchmark test -Dbenchmark.include=CustomerConnectionScalingBenchmark -Dbenchmark.threads=16,64,256,1024}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerConnectionScalingBenchmark {
+
+    private static final int CUSTOMERS = 10_000;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private PostgreSQLContainer<?> container;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUri;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty("benchmark.jdbc.url", "");
+        String username = System.getProperty("benchmark.jdbc.username", "amigoscode");
+        String password = System.getProperty("benchmark.jdbc.password", "password");
+        if (url.isBlank()) {
+            container = new PostgreSQLContainer<>("postgres:latest")
+                    .withDatabaseName("amigoscode-benchmark")
+                    .withUsername(username)
+                    .withPassword(password);
+            container.start();
+            url = container.getJdbcUrl();
+        }
+
+        context = new SpringApplication(Main.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--spring.datasource.hikari.maximum-pool-size=50",
+                "--spring.jpa.show-sql=false",
+                "--customer.cache.enabled=false",
+                "--logging.level.root=warn"
+        );
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("TRUNCATE customer RESTART IDENTITY");
+        context.getBean("jdbc", CustomerDAO.class).importCustomers(IntStream.range(0, CUSTOMERS)
+                .mapToObj(i -> new Customer("customer " + i, "scaling-%d@benchmark.local".formatted(i), 30))
+                .iterator());
+        // the sequence hands out ids in blocks of 50, so they are not 1..CUSTOMERS
+        ids = jdbcTemplate.queryForList("SELECT id FROM customer", Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUri = "http://localhost:%d/api/v1/customers/".formatted(port);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        context.close();
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Benchmark
+    public int getCustomer() throws IOException, InterruptedException {
+        long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        HttpResponse<Void> response = client.send(
+                HttpRequest.newBuilder(URI.create(baseUri + id)).GET().build(),
+                HttpResponse.BodyHandlers.discarding()
+        );
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET %s returned %d".formatted(id, response.statusCode()));
+        }
+        return response.statusCode();
+    }
+}
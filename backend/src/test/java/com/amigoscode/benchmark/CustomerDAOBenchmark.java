@@ -0,0 +1,179 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.Main;
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDAO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Drives every {@link CustomerDAO} implementation through the same operations. The JDBC
+ * and JPA runs use a throwaway Postgres container unless {@code benchmark.jdbc.url} points
+ * at an existing database. Run with {@code mvn -Pbenchmark test}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerDAOBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"jdbc", "jpa", "list"})
+        public String dao;
+
+        @Param({"1000", "100000"})
+        public int tableSize;
+
+        private PostgreSQLContainer<?> container;
+        private ConfigurableApplicationContext context;
+        CustomerDAO customerDAO;
+        List<Customer> customers;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            String url = System.getProperty("benchmark.jdbc.url", "");
+            String username = System.getProperty("benchmark.jdbc.username", "amigoscode");
+            String password = System.getProperty("benchmark.jdbc.password", "password");
+            if (url.isBlank()) {
+                container = new PostgreSQLContainer<>("postgres:latest")
+                        .withDatabaseName("amigoscode-benchmark")
+                        .withUsername(username)
+                        .withPassword(password);
+                container.start();
+                url = container.getJdbcUrl();
+            }
+
+            context = new SpringApplication(Main.class).run(
+                    "--spring.main.web-application-type=none",
+                    "--spring.datasource.url=" + url,
+                    "--spring.datasource.username=" + username,
+                    "--spring.datasource.password=" + password,
+                    "--spring.datasource.hikari.maximum-pool-size=32",
+                    "--spring.jpa.show-sql=false",
+                    "--spring.jpa.properties.hibernate.format_sql=false",
+                    "--customer.email-filter.enabled=false",
+                    "--logging.level.root=warn"
+            );
+            context.getBean(JdbcTemplate.class).execute("TRUNCATE customer RESTART IDENTITY");
+            customerDAO = context.getBean(dao, CustomerDAO.class);
+
+            // the list DAO starts with two customers of its own
+            int existing = customerDAO.selectCustomers(0L, tableSize).size();
+            CustomerDAO loader = dao.equals("list") ? customerDAO : context.getBean("jdbc", CustomerDAO.class);
+            loader.importCustomers(IntStream.rangeClosed(existing + 1, tableSize)
+                    .mapToObj(i -> new Customer("customer " + i, email(i), 16 + i % 100))
+                    .iterator());
+            // the sequence hands out ids in blocks of 50, so they are not 1..tableSize
+            customers = customerDAO.selectCustomers(0L, tableSize);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+            if (container != null) {
+                container.stop();
+            }
+        }
+
+        Customer randomCustomer() {
+            return customers.get(ThreadLocalRandom.current().nextInt(customers.size()));
+        }
+
+        static String email(long i) {
+            return "customer-%d@benchmark.local".formatted(i);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+
+        private int thread;
+        private long sequence;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threadParams) {
+            thread = threadParams.getThreadIndex();
+        }
+
+        Customer nextCustomer() {
+            return new Customer(
+                    "writer " + thread,
+                    "writer-%d-%d-%d@benchmark.local".formatted(thread, sequence++, System.nanoTime()),
+                    30
+            );
+        }
+    }
+
+    @Benchmark
+    public List<Customer> selectAllCustomers(Database database) {
+        return database.customerDAO.selectAllCustomers();
+    }
+
+    @Benchmark
+    public Optional<Customer> selectCustomerById(Database database) {
+        return database.customerDAO.selectCustomerById(database.randomCustomer().getId());
+    }
+
+    @Benchmark
+    public boolean existsPersonWithEmail(Database database) {
+        return database.customerDAO.existsPersonWithEmail(database.randomCustomer().getEmail());
+    }
+
+    @Benchmark
+    public boolean insertCustomer(Database database, Writer writer) {
+        return database.customerDAO.insertCustomer(writer.nextCustomer());
+    }
+
+    /**
+     * Changes name, email and age at once, which the DAOs send as one UPDATE statement. The
+     * email keeps its value, so that {@link #existsPersonWithEmail} still finds every customer.
+     */
+    @Benchmark
+    public Customer updateCustomer(Database database) {
+        Customer customer = database.randomCustomer();
+        Customer changes = new Customer(
+                customer.getId(),
+                "customer %d %d".formatted(customer.getId(), System.nanoTime()),
+                customer.getEmail(),
+                ThreadLocalRandom.current().nextInt(16, 121)
+        );
+        database.customerDAO.updateCustomer(changes);
+        return changes;
+    }
+
+    /**
+     * Deletes a customer inserted by the same call, so the table keeps its size. The cost of
+     * the delete alone is this score minus {@link #insertCustomer}.
+     */
+    @Benchmark
+    public Optional<Customer> insertAndDeleteCustomer(Database database, Writer writer) {
+        Customer customer = writer.nextCustomer();
+        database.customerDAO.insertCustomer(customer);
+        return database.customerDAO.deleteCustomerById(customer.getId());
+    }
+}
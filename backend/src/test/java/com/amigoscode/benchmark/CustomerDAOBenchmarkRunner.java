@@ -0,0 +1,37 @@
+package com.amigoscode.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks matching {@code benchmark.include} once per thread count and writes
+ * one JSON result file per run into the directory given as the first argument.
+ */
+public class CustomerDAOBenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        File resultDirectory = new File(args.length > 0 ? args[0] : "target/jmh");
+        resultDirectory.mkdirs();
+        String include = System.getProperty("benchmark.include", ".*");
+        int[] threadCounts = Arrays.stream(System.getProperty("benchmark.threads", "1,4,16").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDirectory, "customer-%d-threads.json".formatted(threads)).getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
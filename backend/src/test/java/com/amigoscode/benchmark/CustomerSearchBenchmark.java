@@ -0,0 +1,159 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.Main;
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDAO;
+import com.amigoscode.customer.CustomerSearch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Latency of one search page against the SQL backends at millions of rows. The sample mode
+ * reports percentiles, p99 should stay in the low milliseconds at ten million rows. Seeding
+ * ten million rows takes minutes, so run it on its own with
+ * {@code mvn -Pbenchmark test -Dbenchmark.include=CustomerSearchBenchmark -Dbenchmark.threads=1,16}.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CustomerSearchBenchmark {
+
+    static final int PAGE_SIZE = 50;
+    static final int DOMAINS = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"jdbc", "jpa"})
+        public String dao;
+
+        @Param({"1000000", "10000000"})
+        public long tableSize;
+
+        private PostgreSQLContainer<?> container;
+        private ConfigurableApplicationContext context;
+        CustomerDAO customerDAO;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            String url = System.getProperty("benchmark.jdbc.url", "");
+            String username = System.getProperty("benchmark.jdbc.username", "amigoscode");
+            String password = System.getProperty("benchmark.jdbc.password", "password");
+            if (url.isBlank()) {
+                container = new PostgreSQLContainer<>("postgres:latest")
+                        .withDatabaseName("amigoscode-benchmark")
+                        .withUsername(username)
+                        .withPassword(password);
+                container.start();
+                url = container.getJdbcUrl();
+            }
+
+            context = new SpringApplication(Main.class).run(
+                    "--spring.main.web-application-type=none",
+                    "--spring.datasource.url=" + url,
+                    "--spring.datasource.username=" + username,
+                    "--spring.datasource.password=" + password,
+                    "--spring.datasource.hikari.maximum-pool-size=32",
+                    "--customer.email-filter.enabled=false",
+                    "--customer.sql.log-sample-rate=0",
+                    "--logging.level.root=warn"
+            );
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            jdbcTemplate.execute("TRUNCATE customer RESTART IDENTITY");
+            customerDAO = context.getBean(dao, CustomerDAO.class);
+
+            context.getBean("jdbc", CustomerDAO.class).importCustomers(LongStream.rangeClosed(1, tableSize)
+                    .mapToObj(i -> new Customer(name(i), "customer-%d@%s".formatted(i, domain(i)), 16 + (int) (i % 100)))
+                    .iterator());
+            // fresh statistics for the planner and a visibility map for index-only scans
+            jdbcTemplate.execute("VACUUM ANALYZE customer");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+            if (container != null) {
+                container.stop();
+            }
+        }
+
+        long randomRow() {
+            return ThreadLocalRandom.current().nextLong(1, tableSize + 1);
+        }
+
+        static String name(long i) {
+            return "customer " + i;
+        }
+
+        static String domain(long i) {
+            return "domain-%d.benchmark".formatted(i % DOMAINS);
+        }
+    }
+
+    private static CustomerSearch search(String namePrefix, String emailDomain, Integer minAge, Integer maxAge,
+                                         CustomerSearch.Sort sort, boolean descending) {
+        return new CustomerSearch(namePrefix, emailDomain, minAge, maxAge, sort, descending, null);
+    }
+
+    @Benchmark
+    public List<Customer> namePrefix(Database database) {
+        // about a hundred matches at ten million rows
+        String prefix = Database.name(database.randomRow() / 1000);
+        return database.customerDAO.searchCustomers(
+                search(prefix, null, null, null, CustomerSearch.Sort.NAME, false), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Customer> emailDomain(Database database) {
+        return database.customerDAO.searchCustomers(
+                search(null, Database.domain(database.randomRow()), null, null, CustomerSearch.Sort.ID, false),
+                PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Customer> ageRangeByAge(Database database) {
+        int minAge = ThreadLocalRandom.current().nextInt(16, 110);
+        return database.customerDAO.searchCustomers(
+                search(null, null, minAge, minAge + 5, CustomerSearch.Sort.AGE, true), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Customer> deepPageByName(Database database) {
+        // keyset pagination costs the same on any page, so start somewhere in the middle
+        long row = database.randomRow();
+        Customer after = new Customer();
+        after.setId(row);
+        after.setName(Database.name(row));
+        return database.customerDAO.searchCustomers(
+                search(null, null, null, null, CustomerSearch.Sort.NAME, false).after(after), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Customer> allFilters(Database database) {
+        long row = database.randomRow();
+        return database.customerDAO.searchCustomers(
+                search("customer 1", Database.domain(row), 20, 60, CustomerSearch.Sort.AGE, false), PAGE_SIZE);
+    }
+}
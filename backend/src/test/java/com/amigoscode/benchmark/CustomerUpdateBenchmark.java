@@ -0,0 +1,130 @@
+package com.amigoscode.benchmark;
+
+import com.amigoscode.Main;
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDAO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * A full update of name, email and age through the jdbc DAO, as one UPDATE statement, next
+ * to the three single-column UPDATEs the DAO used to send for it. Run on its own with
+ * {@code mvn -Pbenchmark test -Dbenchmark.include=CustomerUpdateBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerUpdateBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"1000", "100000"})
+        public int tableSize;
+
+        private PostgreSQLContainer<?> container;
+        private ConfigurableApplicationContext context;
+        JdbcTemplate jdbcTemplate;
+        CustomerDAO customerDAO;
+        List<Customer> customers;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            String url = System.getProperty("benchmark.jdbc.url", "");
+            String username = System.getProperty("benchmark.jdbc.username", "amigoscode");
+            String password = System.getProperty("benchmark.jdbc.password", "password");
+            if (url.isBlank()) {
+                container = new PostgreSQLContainer<>("postgres:latest")
+                        .withDatabaseName("amigoscode-benchmark")
+                        .withUsername(username)
+                        .withPassword(password);
+                container.start();
+                url = container.getJdbcUrl();
+            }
+
+            context = new SpringApplication(Main.class).run(
+                    "--spring.main.web-application-type=none",
+                    "--spring.datasource.url=" + url,
+                    "--spring.datasource.username=" + username,
+                    "--spring.datasource.password=" + password,
+                    "--spring.datasource.hikari.maximum-pool-size=32",
+                    "--customer.email-filter.enabled=false",
+                    "--customer.sql.log-sample-rate=0",
+                    "--logging.level.root=warn"
+            );
+            jdbcTemplate = context.getBean(JdbcTemplate.class);
+            jdbcTemplate.execute("TRUNCATE customer RESTART IDENTITY");
+            customerDAO = context.getBean("jdbc", CustomerDAO.class);
+            customerDAO.importCustomers(IntStream.rangeClosed(1, tableSize)
+                    .mapToObj(i -> new Customer("customer " + i, email(i), 16 + i % 100))
+                    .iterator());
+            // the sequence hands out ids in blocks of 50, so they are not 1..tableSize
+            customers = customerDAO.selectCustomers(0L, tableSize);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+            if (container != null) {
+                container.stop();
+            }
+        }
+
+        Customer randomChanges() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Customer customer = customers.get(random.nextInt(customers.size()));
+            // the email keeps its value, so that emails stay unique
+            return new Customer(
+                    customer.getId(),
+                    "customer %d %d".formatted(customer.getId(), System.nanoTime()),
+                    customer.getEmail(),
+                    random.nextInt(16, 121)
+            );
+        }
+
+        static String email(long i) {
+            return "customer-%d@benchmark.local".formatted(i);
+        }
+    }
+
+    @Benchmark
+    public Customer singleStatement(Database database) {
+        Customer changes = database.randomChanges();
+        database.customerDAO.updateCustomer(changes);
+        return changes;
+    }
+
+    /**
+     * What the jdbc DAO sent for the same change set before it built one UPDATE from it.
+     */
+    @Benchmark
+    public Customer statementPerField(Database database) {
+        Customer changes = database.randomChanges();
+        database.jdbcTemplate.update("UPDATE customer SET name = ? WHERE id = ?", changes.getName(), changes.getId());
+        database.jdbcTemplate.update("UPDATE customer SET email = ? WHERE id = ?", changes.getEmail(), changes.getId());
+        database.jdbcTemplate.update("UPDATE customer SET age = ? WHERE id = ?", changes.getAge(), changes.getId());
+        return changes;
+    }
+}
@@ -0,0 +1,131 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.customer.CustomerStats.AgeBucket;
+import com.amigoscode.customer.CustomerStats.EmailDomainCount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerAggregatesTest {
+
+    private CustomerListDataAccessService source;
+    private CustomerAggregates underTest;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        // starts with Alex, 21, and Jamile, 23, both at gmail.com
+        source = new CustomerListDataAccessService();
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CustomerAggregates(
+                source,
+                new CustomerStatsProperties(true, 10, 2, Duration.ofMinutes(10)),
+                meterRegistry
+        );
+    }
+
+    @Test
+    void statsAreEmptyUntilReconciled() {
+        // When
+        var actual = underTest.stats();
+
+        // Then
+        assertThat(actual.count()).isZero();
+        assertThat(actual.ageHistogram()).isEmpty();
+        assertThat(actual.reconciledAt()).isNull();
+    }
+
+    @Test
+    void statsAreLoadedFromSourceByReconcile() {
+        // When
+        underTest.reconcile();
+        var actual = underTest.stats();
+
+        // Then
+        assertThat(actual.count()).isEqualTo(2);
+        assertThat(actual.ageHistogram()).containsExactly(new AgeBucket(20, 29, 2));
+        assertThat(actual.topEmailDomains()).containsExactly(new EmailDomainCount("gmail.com", 2));
+        assertThat(actual.reconciledAt()).isNotNull();
+    }
+
+    @Test
+    void writesUpdateStatsWithoutSource() {
+        // Given
+        underTest.reconcile();
+        Customer ali = new Customer(3L, "Ali", "ali@MAIL.com", 35);
+        Customer jamila = new Customer(4L, "Jamila", "jamila@mail.com", 5);
+        Customer bob = new Customer(5L, "Bob", "bob@outlook.com", 70);
+
+        // When
+        underTest.added(ali);
+        underTest.added(jamila);
+        underTest.added(bob);
+        underTest.removed(new Customer(1L, "Alex", "alex@gmail.com", 21));
+        underTest.changed(bob, new Customer(5L, "Bob", "bob@mail.com", 75));
+        var actual = underTest.stats();
+
+        // Then
+        assertThat(actual.count()).isEqualTo(4);
+        assertThat(actual.ageHistogram()).containsExactly(
+                new AgeBucket(0, 9, 1),
+                new AgeBucket(20, 29, 1),
+                new AgeBucket(30, 39, 1),
+                new AgeBucket(70, 79, 1)
+        );
+        // capped at two domains
+        assertThat(actual.topEmailDomains()).containsExactly(
+                new EmailDomainCount("mail.com", 3),
+                new EmailDomainCount("gmail.com", 1)
+        );
+    }
+
+    @Test
+    void importedCountsAreAdded() {
+        // Given
+        underTest.reconcile();
+        var imported = new CustomerCounts(
+                Map.of(25, 2L, 35, 1L),
+                Map.of("gmail.com", 1L, "mail.com", 2L)
+        );
+
+        // When
+        underTest.added(imported);
+        var actual = underTest.stats();
+
+        // Then
+        assertThat(actual.count()).isEqualTo(5);
+        assertThat(actual.ageHistogram()).containsExactly(new AgeBucket(20, 29, 4), new AgeBucket(30, 39, 1));
+        assertThat(actual.topEmailDomains()).containsExactly(
+                new EmailDomainCount("gmail.com", 3),
+                new EmailDomainCount("mail.com", 2)
+        );
+    }
+
+    @Test
+    void reconcileReplacesDriftedStats() {
+        // Given
+        underTest.reconcile();
+        // written past the aggregates
+        source.insertCustomer(new Customer("Ali", "ali@mail.com", 35));
+        underTest.added(new Customer(99L, "Ghost", "ghost@gmail.com", 22));
+
+        // When
+        underTest.reconcile();
+        var actual = underTest.stats();
+
+        // Then
+        assertThat(actual.count()).isEqualTo(3);
+        assertThat(actual.ageHistogram()).containsExactly(new AgeBucket(20, 29, 2), new AgeBucket(30, 39, 1));
+        assertThat(actual.topEmailDomains()).containsExactly(
+                new EmailDomainCount("gmail.com", 2),
+                new EmailDomainCount("mail.com", 1)
+        );
+        // one customer missing from two places, one too many in two places
+        assertThat(meterRegistry.get("customer.stats.drift").gauge().value()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,167 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.VirtualThreadPinning;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerCachingDataAccessServiceTest {
+
+    private CustomerCachingDataAccessService underTest;
+    private SimpleMeterRegistry meterRegistry;
+    @Mock
+    private CustomerDAO delegate;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CustomerCachingDataAccessService(
+                delegate,
+                new CustomerCacheProperties(true, 100, Duration.ofMinutes(1)),
+                meterRegistry
+        );
+    }
+
+    @Test
+    void selectCustomerByIdLoadsOnce() {
+        // Given
+        long id = 1L;
+        Customer customer = new Customer(id, "Alex", "alex@mail.com", 20);
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+
+        // When
+        var first = underTest.selectCustomerById(id);
+        var second = underTest.selectCustomerById(id);
+
+        // Then
+        assertThat(first).hasValue(customer);
+        assertThat(second).hasValue(customer);
+        verify(delegate, times(1)).selectCustomerById(id);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void selectCustomerByIdDoesNotCacheAbsentCustomers() {
+        // Given
+        long id = 1L;
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.empty());
+
+        // When
+        underTest.selectCustomerById(id);
+        var actual = underTest.selectCustomerById(id);
+
+        // Then
+        assertThat(actual).isEmpty();
+        verify(delegate, times(2)).selectCustomerById(id);
+    }
+
+    @Test
+    void updateCustomerInvalidatesCachedCustomer() {
+        // Given
+        long id = 1L;
+        Customer customer = new Customer(id, "Alex", "alex@mail.com", 20);
+        Customer updated = new Customer(id, "Alex", "alex@mail.com", 21);
+        when(delegate.selectCustomerById(id))
+                .thenReturn(Optional.of(customer))
+                .thenReturn(Optional.of(updated));
+        underTest.selectCustomerById(id);
+
+        // When
+        Customer changes = new Customer();
+        changes.setId(id);
+        changes.setAge(21);
+        underTest.updateCustomer(changes);
+
+        // Then
+        verify(delegate).updateCustomer(changes);
+        assertThat(underTest.selectCustomerById(id)).hasValue(updated);
+    }
+
+    @Test
+    void deleteCustomerByIdInvalidatesCachedCustomer() {
+        // Given
+        long id = 1L;
+        Customer customer = new Customer(id, "Alex", "alex@mail.com", 20);
+        when(delegate.selectCustomerById(id))
+                .thenReturn(Optional.of(customer))
+                .thenReturn(Optional.empty());
+        when(delegate.deleteCustomerById(id)).thenReturn(Optional.of(customer));
+        underTest.selectCustomerById(id);
+
+        // When
+        var deleted = underTest.deleteCustomerById(id);
+
+        // Then
+        assertThat(deleted).hasValue(customer);
+        assertThat(underTest.selectCustomerById(id)).isEmpty();
+    }
+
+    @Test
+    void existsPersonWithIdUsesCachedCustomer() {
+        // Given
+        long id = 1L;
+        when(delegate.selectCustomerById(id)).thenReturn(Optional.of(new Customer(id, "Alex", "alex@mail.com", 20)));
+        underTest.selectCustomerById(id);
+
+        // When
+        var actual = underTest.existsPersonWithId(id);
+
+        // Then
+        assertThat(actual).isTrue();
+        verify(delegate, never()).existsPersonWithId(id);
+    }
+
+    @Test
+    void selectCustomerByIdPropagatesFailedLoadWithoutCaching() {
+        // Given
+        long id = 1L;
+        Customer customer = new Customer(id, "Alex", "alex@mail.com", 20);
+        when(delegate.selectCustomerById(id))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(Optional.of(customer));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.selectCustomerById(id))
+                .isInstanceOf(QueryTimeoutException.class);
+        assertThat(underTest.selectCustomerById(id)).hasValue(customer);
+    }
+
+    @Test
+    void concurrentLoadsOnVirtualThreadsShareOneLoadWithoutPinning() {
+        // Given
+        long id = 1L;
+        Customer customer = new Customer(id, "Alex", "alex@mail.com", 20);
+        when(delegate.selectCustomerById(id)).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return Optional.of(customer);
+        });
+
+        // When
+        var pinned = VirtualThreadPinning.record(executor -> {
+            for (int i = 0; i < 100; i++) {
+                executor.submit(() -> assertThat(underTest.selectCustomerById(id)).hasValue(customer));
+            }
+        });
+
+        // Then
+        assertThat(pinned).isEmpty();
+        verify(delegate, times(1)).selectCustomerById(id);
+    }
+}
@@ -0,0 +1,155 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerEmailFilterDataAccessServiceTest {
+
+    private CustomerEmailFilterDataAccessService underTest;
+    private CustomerEmailIndex emailIndex;
+    private SimpleMeterRegistry meterRegistry;
+    @Mock
+    private CustomerDAO delegate;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        emailIndex = new CustomerEmailIndex(
+                delegate,
+                new CustomerEmailFilterProperties(true, 1000, 0.01, Duration.ofHours(6)),
+                meterRegistry
+        );
+        underTest = new CustomerEmailFilterDataAccessService(delegate, emailIndex);
+    }
+
+    private void rebuildWith(Customer... customers) {
+        doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            List.of(customers).forEach(consumer);
+            return null;
+        }).when(delegate).streamAllCustomers(any());
+        emailIndex.rebuild();
+    }
+
+    @Test
+    void existsPersonWithEmailAsksDelegateUntilBuilt() {
+        // Given
+        String email = "alex@mail.com";
+        when(delegate.existsPersonWithEmail(email)).thenReturn(true);
+
+        // When
+        var actual = underTest.existsPersonWithEmail(email);
+
+        // Then
+        assertThat(actual).isTrue();
+    }
+
+    @Test
+    void existsPersonWithEmailSkipsDelegateForUnknownEmail() {
+        // Given
+        rebuildWith(new Customer(1L, "Alex", "alex@mail.com", 20));
+
+        // When
+        var actual = underTest.existsPersonWithEmail("jamila@mail.com");
+
+        // Then
+        assertThat(actual).isFalse();
+        verify(delegate, never()).existsPersonWithEmail(any());
+        assertThat(meterRegistry.get("customer.email.filter.lookups").tag("result", "absent").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void existsPersonWithEmailAsksDelegateForKnownEmailIgnoringCase() {
+        // Given
+        rebuildWith(new Customer(1L, "Alex", "alex@mail.com", 20));
+        when(delegate.existsPersonWithEmail("Alex@Mail.com")).thenReturn(true);
+
+        // When
+        var actual = underTest.existsPersonWithEmail("Alex@Mail.com");
+
+        // Then
+        assertThat(actual).isTrue();
+    }
+
+    @Test
+    void insertedAndUpdatedEmailsAreKnown() {
+        // Given
+        rebuildWith();
+        Customer inserted = new Customer("Alex", "alex@mail.com", 20);
+        Customer changes = new Customer();
+        changes.setId(2L);
+        changes.setEmail("jamila@mail.com");
+        when(delegate.insertCustomer(inserted)).thenReturn(true);
+
+        // When
+        underTest.insertCustomer(inserted);
+        underTest.insertCustomers(List.of(new Customer("Ali", "ali@mail.com", 30)));
+        underTest.updateCustomer(changes);
+
+        // Then
+        assertThat(emailIndex.mightContain("alex@mail.com")).isTrue();
+        assertThat(emailIndex.mightContain("ali@mail.com")).isTrue();
+        assertThat(emailIndex.mightContain("jamila@mail.com")).isTrue();
+    }
+
+    @Test
+    void importedEmailsAreKnown() {
+        // Given
+        rebuildWith();
+        when(delegate.importCustomers(any())).thenAnswer(invocation -> {
+            Iterator<Customer> customers = invocation.getArgument(0);
+            long count = 0;
+            while (customers.hasNext()) {
+                customers.next();
+                count++;
+            }
+            return new CustomerCounts(Map.of(20, count), Map.of("mail.com", count));
+        });
+
+        // When
+        var actual = underTest.importCustomers(List.of(new Customer("Alex", "alex@mail.com", 20)).iterator());
+
+        // Then
+        assertThat(actual.total()).isEqualTo(1);
+        assertThat(emailIndex.mightContain("alex@mail.com")).isTrue();
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfiguredProbability() {
+        // Given
+        Customer[] customers = IntStream.range(0, 1000)
+                .mapToObj(i -> new Customer((long) i, "name", UUID.randomUUID() + "@mail.com", 20))
+                .toArray(Customer[]::new);
+        rebuildWith(customers);
+
+        // When
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> emailIndex.mightContain(UUID.randomUUID() + "@mail.com"))
+                .count();
+
+        // Then
+        assertThat(falsePositives).isLessThan(300);
+        assertThat(meterRegistry.get("customer.email.filter.memory").gauge().value()).isGreaterThan(0);
+    }
+}
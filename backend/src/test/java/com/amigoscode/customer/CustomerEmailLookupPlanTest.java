@@ -0,0 +1,47 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestcontainers;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerEmailLookupPlanTest extends AbstractTestcontainers {
+
+    private static final int ROWS = 1_000_000;
+
+    @Test
+    void emailCheckStaysAnIndexOnlyScanAtMillionsOfRows() {
+        // Given
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        TransactionTemplate transaction = new TransactionTemplate(
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource())
+        );
+
+        // When
+        // the rows are rolled back, so the other tests keep a small table
+        List<String> plan = transaction.execute(status -> {
+            status.setRollbackOnly();
+            jdbcTemplate.update("""
+                    INSERT INTO customer(name, email, age)
+                    SELECT 'Customer ' || i, 'Customer' || i || '@AmigosCode.com', 20
+                    FROM generate_series(1, ?) i
+                    """, ROWS);
+            jdbcTemplate.execute("ANALYZE customer");
+            return jdbcTemplate.queryForList(
+                    "EXPLAIN " + CustomerJdbcDataAccessService.EMAIL_EXISTS_SQL,
+                    String.class,
+                    "customer4242@amigoscode.com"
+            );
+        });
+
+        // Then
+        assertThat(String.join("\n", plan))
+                .contains("Index Only Scan using " + Customer.EMAIL_UNIQUE_CONSTRAINT)
+                .doesNotContain("Seq Scan");
+    }
+}
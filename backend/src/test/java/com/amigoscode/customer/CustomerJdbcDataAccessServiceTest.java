@@ -1,14 +1,28 @@
 package com.amigoscode.customer;
 
 import com.amigoscode.AbstractTestcontainers;
+import com.amigoscode.VirtualThreadPinning;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
 
 class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
 
@@ -37,6 +51,55 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actualCustomers).isNotEmpty();
     }
 
+    @Test
+    void selectCustomers() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                20
+        );
+        underTest.insertCustomer(customer);
+        Long id = underTest.selectAllCustomers().stream()
+                .filter(c -> c.getEmail().equalsIgnoreCase(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        // When
+        List<Customer> actual = underTest.selectCustomers(id - 1, 1);
+
+        // Then
+        assertThat(actual).hasSize(1).first().satisfies(c -> {
+            assertThat(c.getId()).isEqualTo(id);
+            assertThat(c.getEmail()).isEqualTo(email);
+        });
+        assertThat(underTest.selectCustomers(id, 10)).allMatch(c -> c.getId() > id);
+    }
+
+    @Test
+    void streamAllCustomers() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                20
+        );
+        underTest.insertCustomer(customer);
+
+        // When
+        List<Customer> actual = new ArrayList<>();
+        underTest.streamAllCustomers(actual::add);
+
+        // Then
+        assertThat(actual)
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+                .contains(customer);
+        assertThat(actual).hasSameSizeAs(underTest.selectAllCustomers());
+    }
+
     @Test
     void selectCustomerById() {
         // Given
@@ -47,7 +110,7 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
                 20
         );
         underTest.insertCustomer(customer);
-        Integer id = underTest.selectAllCustomers().stream()
+        Long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equalsIgnoreCase(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -68,7 +131,7 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
     @Test
     void willReturnEmptyWhenSelectCustomerById() {
         // Given
-        Integer id = -1;
+        Long id = -1L;
 
         // When
         var actual = underTest.selectCustomerById(id);
@@ -77,6 +140,114 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isEmpty();
     }
 
+    @Test
+    void searchCustomersFiltersByNamePrefixDomainAndAge() {
+        // Given
+        String domain = UUID.randomUUID() + ".search.test";
+        Customer match = new Customer("Alexandra", "alexandra@" + domain.toUpperCase(), 30);
+        underTest.insertCustomers(List.of(
+                match,
+                new Customer("Alexandra", "too-old@" + domain, 60),
+                new Customer("Bob", "bob@" + domain, 30),
+                new Customer("Alexandra", "other-domain@" + UUID.randomUUID() + ".test", 30)
+        ));
+        CustomerSearch search = new CustomerSearch("ALEX", domain, 18, 40, CustomerSearch.Sort.ID, false, null);
+
+        // When
+        var actual = underTest.searchCustomers(search, 10);
+
+        // Then
+        assertThat(actual).containsExactly(match);
+    }
+
+    @Test
+    void searchCustomersPagesThroughSortOrder() {
+        // Given
+        String domain = UUID.randomUUID() + ".search.test";
+        Customer carol = new Customer("Carol", "carol@" + domain, 40);
+        Customer alex = new Customer("Alex", "alex@" + domain, 20);
+        Customer bob = new Customer("Bob", "bob@" + domain, 30);
+        Customer alex2 = new Customer("Alex", "alex2@" + domain, 50);
+        underTest.insertCustomers(List.of(carol, alex, bob, alex2));
+        CustomerSearch byNameDescending = new CustomerSearch(null, domain, null, null,
+                CustomerSearch.Sort.NAME, true, null);
+
+        // When
+        var firstPage = underTest.searchCustomers(byNameDescending, 2);
+        var secondPage = underTest.searchCustomers(byNameDescending.after(firstPage.get(1)), 2);
+        var byAge = underTest.searchCustomers(
+                new CustomerSearch(null, domain, null, null, CustomerSearch.Sort.AGE, false, null), 10);
+
+        // Then
+        assertThat(firstPage).containsExactly(carol, bob);
+        assertThat(secondPage).containsExactly(alex2, alex);
+        assertThat(byAge).containsExactly(alex, bob, carol, alex2);
+    }
+
+    @Test
+    void searchCustomersTreatsLikeWildcardsLiterally() {
+        // Given
+        String domain = UUID.randomUUID() + ".search.test";
+        Customer percent = new Customer("100% Alex", "percent@" + domain, 30);
+        underTest.insertCustomers(List.of(percent, new Customer("1000 Alex", "digits@" + domain, 30)));
+
+        // When
+        var actual = underTest.searchCustomers(
+                new CustomerSearch("100%", domain, null, null, CustomerSearch.Sort.ID, false, null), 10);
+
+        // Then
+        assertThat(actual).containsExactly(percent);
+    }
+
+    @Test
+    void findSimilarCustomersMatchesListBackend() {
+        // Given
+        // no hex letters, so that none of the UUID emails of other tests is similar
+        String word = FAKER.regexify("[g-z]{8}");
+        String domain = UUID.randomUUID() + ".test";
+        List<Customer> customers = List.of(
+                new Customer(word, "exact@" + domain, 20),
+                new Customer(word.substring(1), "prefix-dropped@" + domain, 30),
+                new Customer(word.substring(0, 4) + " " + word.substring(4), "split@" + domain, 40),
+                new Customer("Bob", word + "@" + domain, 50),
+                new Customer(new StringBuilder(word).reverse().toString(), "reversed@" + domain, 60)
+        );
+        CustomerListDataAccessService listBackend = new CustomerListDataAccessService();
+        customers.forEach(customer -> listBackend.insertCustomer(
+                new Customer(customer.getName(), customer.getEmail(), customer.getAge())));
+        underTest.insertCustomers(customers);
+        String misspelled = word.substring(0, 3) + word.charAt(4) + word.charAt(3) + word.substring(5);
+
+        // When
+        var actual = underTest.findSimilarCustomers(misspelled, 10);
+
+        // Then
+        assertThat(actual).isNotEmpty()
+                .extracting(CustomerMatch::similarity, match -> match.customer().getEmail())
+                .containsExactlyElementsOf(listBackend.findSimilarCustomers(misspelled, 10).stream()
+                        .map(match -> tuple(match.similarity(), match.customer().getEmail()))
+                        .toList());
+        assertThat(underTest.findSimilarCustomers(misspelled, 1)).hasSize(1);
+    }
+
+    @Test
+    void countCustomersByAgeAndEmailDomain() {
+        // Given
+        String domain = UUID.randomUUID() + ".count.test";
+        underTest.insertCustomers(List.of(
+                new Customer("Alex", "alex@" + domain.toUpperCase(), 20),
+                new Customer("Bob", "bob@" + domain, 30)
+        ));
+
+        // When
+        var actual = underTest.countCustomers();
+
+        // Then
+        assertThat(actual.byEmailDomain()).containsEntry(domain, 2L);
+        assertThat(actual.byAge().values().stream().mapToLong(Long::longValue).sum())
+                .isEqualTo(underTest.selectAllCustomers().size());
+    }
+
     @Test
     void insertCustomer() {
         // Given
@@ -98,6 +269,132 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isNotEmpty();
     }
 
+    @Test
+    void insertCustomerSetsGeneratedId() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                20
+        );
+
+        // When
+        var actual = underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(actual).isTrue();
+        assertThat(customer.getId()).isNotNull();
+        assertThat(underTest.selectCustomerById(customer.getId()))
+                .hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(email));
+    }
+
+    @Test
+    void insertCustomerReturnsFalseWhenEmailIsTaken() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20));
+        Customer duplicate = new Customer(FAKER.name().fullName(), email, 30);
+
+        // When
+        var actual = underTest.insertCustomer(duplicate);
+
+        // Then
+        assertThat(actual).isFalse();
+        assertThat(duplicate.getId()).isNull();
+    }
+
+    @Test
+    void insertCustomerReturnsFalseWhenEmailIsTakenInAnotherCase() {
+        // Given
+        String email = "Alex-" + UUID.randomUUID() + "@AmigosCode.com";
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20));
+        Customer duplicate = new Customer(FAKER.name().fullName(), email.toLowerCase(), 30);
+
+        // When
+        var actual = underTest.insertCustomer(duplicate);
+
+        // Then
+        assertThat(actual).isFalse();
+        assertThat(duplicate.getId()).isNull();
+    }
+
+    @Test
+    void insertCustomers() {
+        // Given
+        String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 20));
+
+        Customer taken = new Customer(FAKER.name().fullName(), takenEmail, 30);
+        Customer first = new Customer(FAKER.name().fullName(), UUID.randomUUID() + "@mail.com", 31);
+        Customer second = new Customer(FAKER.name().fullName(), UUID.randomUUID() + "@mail.com", 32);
+
+        // When
+        var actual = underTest.insertCustomers(List.of(first, taken, second));
+
+        // Then
+        assertThat(actual).isEqualTo(2);
+        assertThat(taken.getId()).isNull();
+        assertThat(underTest.selectCustomerById(first.getId())).hasValue(first);
+        assertThat(underTest.selectCustomerById(second.getId())).hasValue(second);
+    }
+
+    @Test
+    void insertCustomersWithEmailsDifferingInCase() {
+        // Given
+        String email = UUID.randomUUID() + "@mail.com";
+        Customer first = new Customer(FAKER.name().fullName(), email.toUpperCase(), 31);
+        Customer second = new Customer(FAKER.name().fullName(), email, 32);
+
+        // When
+        var actual = underTest.insertCustomers(List.of(first, second));
+
+        // Then
+        assertThat(actual).isEqualTo(1);
+        assertThat(second.getId()).isNull();
+        assertThat(underTest.selectCustomerById(first.getId())).hasValue(first);
+    }
+
+    @Test
+    void insertCustomersWithoutEmailFailsOnConstraint() {
+        // Given
+        Customer withoutEmail = new Customer(FAKER.name().fullName(), null, 31);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.insertCustomers(List.of(withoutEmail)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void importCustomers() {
+        // Given
+        String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 20));
+
+        String email = UUID.randomUUID() + "@mail.com";
+        Customer quoted = new Customer("O'Neil, \"Shaq\"", email, 31);
+        List<Customer> customers = List.of(
+                quoted,
+                new Customer(FAKER.name().fullName(), takenEmail, 30),
+                new Customer(FAKER.name().fullName(), email, 32)
+        );
+
+        // When
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        underTest = new CustomerJdbcDataAccessService(jdbcTemplate, rowMapper);
+        var actual = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()))
+                .execute(status -> underTest.importCustomers(customers.iterator()));
+
+        // Then
+        assertThat(actual.total()).isEqualTo(1);
+        assertThat(actual.byAge()).containsExactly(entry(31, 1L));
+        assertThat(actual.byEmailDomain()).containsExactly(entry("mail.com", 1L));
+        assertThat(underTest.selectAllCustomers())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+                .contains(quoted);
+    }
+
     @Test
     void existsPersonWithEmail() {
         // Given
@@ -116,6 +413,19 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
         assertThat(actual).isTrue();
     }
 
+    @Test
+    void existsPersonWithEmailIgnoresCase() {
+        // Given
+        String email = "alex-" + UUID.randomUUID() + "@amigoscode.com";
+        underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20));
+
+        // When
+        var actual = underTest.existsPersonWithEmail(email.toUpperCase());
+
+        // Then
+        assertThat(actual).isTrue();
+    }
+
     @Test
     void existsPersonWithEmailFalse() {
         // Given
@@ -138,7 +448,7 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
                 20
         );
         underTest.insertCustomer(customer);
-        Integer id = underTest.selectAllCustomers().stream()
+        Long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equalsIgnoreCase(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -154,7 +464,7 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
     @Test
     void existsPersonWithIdFalse() {
         // Given
-        Integer id = -1;
+        Long id = -1L;
 
         // When
         var actual = underTest.existsPersonWithId(id);
@@ -174,20 +484,33 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
         );
         underTest.insertCustomer(customer);
 
-        Integer id = underTest.selectAllCustomers().stream()
+        Long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equalsIgnoreCase(email))
                 .map(Customer::getId)
                 .findFirst()
                 .orElseThrow();
 
         // When
-        underTest.deleteCustomerById(id);
+        var deleted = underTest.deleteCustomerById(id);
 
         // Then
         var actual = underTest.selectCustomerById(id);
+        assertThat(deleted).hasValue(new Customer(id, customer.getName(), email, 20));
         assertThat(actual).isNotPresent();
     }
 
+    @Test
+    void deleteCustomerByIdReturnsEmptyWhenIdNotPresent() {
+        // Given
+        Long id = -1L;
+
+        // When
+        var actual = underTest.deleteCustomerById(id);
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+
     @Test
     void updateCustomerName() {
         // Given
@@ -199,7 +522,7 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
         );
         underTest.insertCustomer(customer);
 
-        Integer id = underTest.selectAllCustomers().stream()
+        Long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equalsIgnoreCase(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -211,11 +534,12 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
         String newValue = "Mama Samba";
         customerToUpdate.setName(newValue);
 
-        underTest.updateCustomer(customerToUpdate);
+        var previous = underTest.updateCustomer(customerToUpdate);
 
         var actual = underTest.selectCustomerById(id);
 
         // Then
+        assertThat(previous).hasValue(new Customer(id, customer.getName(), email, 20));
         assertThat(actual).isPresent().hasValueSatisfying(c -> {
             assertThat(c.getId()).isEqualTo(id);
             assertThat(c.getName()).isEqualTo(newValue);
@@ -235,7 +559,7 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
         );
         underTest.insertCustomer(customer);
 
-        Integer id = underTest.selectAllCustomers().stream()
+        Long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equalsIgnoreCase(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -271,7 +595,7 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
         );
         underTest.insertCustomer(customer);
 
-        Integer id = underTest.selectAllCustomers().stream()
+        Long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equalsIgnoreCase(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -307,7 +631,7 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
         );
         underTest.insertCustomer(customer);
 
-        Integer id = underTest.selectAllCustomers().stream()
+        Long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equalsIgnoreCase(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -344,7 +668,7 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
         );
         underTest.insertCustomer(customer);
 
-        Integer id = underTest.selectAllCustomers().stream()
+        Long id = underTest.selectAllCustomers().stream()
                 .filter(c -> c.getEmail().equalsIgnoreCase(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -366,4 +690,92 @@ class CustomerJdbcDataAccessServiceTest extends AbstractTestcontainers {
             assertThat(c.getAge()).isEqualTo(customer.getAge());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateCustomerSendsOneStatementPerUpdateUnderConcurrentLoad() throws Exception {
+        // Given
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        underTest = new CustomerJdbcDataAccessService(jdbcTemplate, rowMapper);
+        TransactionTemplate transactionTemplate =
+                new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+
+        int threads = 8;
+        int updatesPerThread = 25;
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Customer customer = new Customer(
+                    FAKER.name().fullName(),
+                    FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                    20
+            );
+            underTest.insertCustomer(customer);
+            ids.add(customer.getId());
+        }
+        // row versions the database wrote, one per UPDATE statement as each touches one row.
+        // The counter also holds updates of earlier transactions not yet flushed, hence the difference
+        String rowUpdatesSql = "SELECT n_tup_upd FROM pg_stat_xact_user_tables WHERE relname = 'customer'";
+        LongAdder rowUpdates = new LongAdder();
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long id : ids) {
+            futures.add(executor.submit(() -> {
+                for (int i = 1; i <= updatesPerThread; i++) {
+                    Customer customerToUpdate = new Customer(
+                            id,
+                            "name-" + i,
+                            "email-" + i + "-" + UUID.randomUUID(),
+                            20 + i
+                    );
+                    transactionTemplate.executeWithoutResult(status -> {
+                        Long before = jdbcTemplate.queryForObject(rowUpdatesSql, Long.class);
+                        underTest.updateCustomer(customerToUpdate);
+                        rowUpdates.add(jdbcTemplate.queryForObject(rowUpdatesSql, Long.class) - before);
+                    });
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(rowUpdates.sum()).isEqualTo((long) threads * updatesPerThread);
+        for (Long id : ids) {
+            assertThat(underTest.selectCustomerById(id)).hasValueSatisfying(c -> {
+                assertThat(c.getName()).isEqualTo("name-" + updatesPerThread);
+                assertThat(c.getEmail()).startsWith("email-" + updatesPerThread + "-");
+                assertThat(c.getAge()).isEqualTo(20 + updatesPerThread);
+            });
+        }
+    }
+
+    @Test
+    void driverCallsOnVirtualThreadsDoNotPin() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(FAKER.name().fullName(), email, 20);
+        underTest.insertCustomer(customer);
+
+        // When
+        // more threads than the pool has connections, so some wait for one
+        var pinned = VirtualThreadPinning.record(executor -> {
+            for (int i = 0; i < 100; i++) {
+                int age = 20 + i % 50;
+                executor.submit(() -> {
+                    underTest.selectCustomerById(customer.getId());
+                    underTest.existsPersonWithEmail(email);
+                    Customer changes = new Customer();
+                    changes.setId(customer.getId());
+                    changes.setAge(age);
+                    underTest.updateCustomer(changes);
+                });
+            }
+        });
+
+        // Then
+        assertThat(pinned).isEmpty();
+    }
+}
@@ -1,11 +1,18 @@
 package com.amigoscode.customer;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -38,10 +45,24 @@ class CustomerJpaDataAccessServiceTest {
                 .findAll();
     }
 
+    @Test
+    void selectCustomers() {
+        // Given
+        long after = 10L;
+        int limit = 5;
+
+        // When
+        underTest.selectCustomers(after, limit);
+
+        // Then
+        Mockito.verify(customerRepository)
+                .findByIdGreaterThanOrderByIdAsc(after, PageRequest.ofSize(limit));
+    }
+
     @Test
     void selectCustomerById() {
         // Givem
-        int id = 1;
+        long id = 1L;
 
         // When
         underTest.selectCustomerById(id);
@@ -57,10 +78,43 @@ class CustomerJpaDataAccessServiceTest {
         Customer customer = new Customer();
 
         // When
-        underTest.insertCustomer(customer);
+        var actual = underTest.insertCustomer(customer);
 
         // Then
-        Mockito.verify(customerRepository).save(customer);
+        Mockito.verify(customerRepository).saveAndFlush(customer);
+        assertThat(actual).isTrue();
+    }
+
+    @Test
+    void insertCustomerReturnsFalseWhenEmailIsTaken() {
+        // Givem
+        Customer customer = new Customer();
+        Mockito.when(customerRepository.saveAndFlush(customer)).thenThrow(new DataIntegrityViolationException(
+                "duplicate",
+                new ConstraintViolationException("duplicate", null, Customer.EMAIL_UNIQUE_CONSTRAINT)
+        ));
+
+        // When
+        var actual = underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(actual).isFalse();
+    }
+
+    @Test
+    void insertCustomersSkipsTakenEmails() {
+        // Givem
+        Customer taken = new Customer("Alex", "Alex@Mail.com", 20);
+        Customer fresh = new Customer("Sam", "sam@mail.com", 21);
+        Mockito.when(customerRepository.findLowerCaseEmailsIn(List.of("alex@mail.com", "sam@mail.com")))
+                .thenReturn(Set.of("alex@mail.com"));
+
+        // When
+        var actual = underTest.insertCustomers(List.of(taken, fresh));
+
+        // Then
+        Mockito.verify(customerRepository).saveAll(List.of(fresh));
+        assertThat(actual).isEqualTo(1);
     }
 
     @Test
@@ -78,7 +132,7 @@ class CustomerJpaDataAccessServiceTest {
     @Test
     void existsPersonWithId() {
         // Givem
-        Integer id = 1;
+        Long id = 1L;
 
         // When
         underTest.existsPersonWithId(id);
@@ -90,13 +144,33 @@ class CustomerJpaDataAccessServiceTest {
     @Test
     void deleteCustomerById() {
         // Givem
-        Integer id = 1;
+        Long id = 1L;
+        Customer customer = new Customer(id, "Alex", "alex@mail.com", 20);
+
+        Mockito.when(customerRepository.findForUpdateById(id)).thenReturn(Optional.of(customer));
+        Mockito.when(customerRepository.deleteCustomerById(id)).thenReturn(1);
 
         // When
-        underTest.deleteCustomerById(id);
+        var actual = underTest.deleteCustomerById(id);
 
         // Then
-        Mockito.verify(customerRepository).deleteById(id);
+        Mockito.verify(customerRepository).deleteCustomerById(id);
+        assertThat(actual).contains(customer);
+    }
+
+    @Test
+    void deleteCustomerByIdWhenIdNotPresent() {
+        // Givem
+        Long id = 1L;
+
+        Mockito.when(customerRepository.findForUpdateById(id)).thenReturn(Optional.empty());
+
+        // When
+        var actual = underTest.deleteCustomerById(id);
+
+        // Then
+        Mockito.verify(customerRepository, Mockito.never()).deleteCustomerById(id);
+        assertThat(actual).isEmpty();
     }
 
     @Test
@@ -107,7 +181,25 @@ class CustomerJpaDataAccessServiceTest {
         // When
         underTest.insertCustomer(customer);
 
+        // Then
+        Mockito.verify(customerRepository).saveAndFlush(customer);
+    }
+
+    @Test
+    void updateCustomerAppliesOnlyChangedFields() {
+        // Givem
+        Customer customer = new Customer(1L, "Alex", "alex@mail.com", 20);
+        Customer changes = new Customer();
+        changes.setId(customer.getId());
+        changes.setAge(21);
+        Mockito.when(customerRepository.findForUpdateById(customer.getId())).thenReturn(Optional.of(customer));
+
+        // When
+        var previous = underTest.updateCustomer(changes);
+
         // Then
         Mockito.verify(customerRepository).save(customer);
+        assertThat(customer).isEqualTo(new Customer(1L, "Alex", "alex@mail.com", 21));
+        assertThat(previous).contains(new Customer(1L, "Alex", "alex@mail.com", 20));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,219 @@
+package com.amigoscode.customer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class CustomerListDataAccessServiceTest {
+
+    private CustomerListDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CustomerListDataAccessService();
+    }
+
+    @Test
+    void insertCustomerGeneratesIds() {
+        // Given
+        Customer customer = new Customer("Ali", "ali@mail.com", 20);
+
+        // When
+        var inserted = underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(inserted).isTrue();
+        assertThat(customer.getId()).isEqualTo(3);
+        assertThat(underTest.selectCustomerById(3L)).hasValue(customer);
+    }
+
+    @Test
+    void insertCustomerRejectsEmailIgnoringCase() {
+        // Given
+        Customer customer = new Customer("Alex", "ALEX@gmail.com", 20);
+
+        // When
+        var inserted = underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(inserted).isFalse();
+        assertThat(customer.getId()).isNull();
+        assertThat(underTest.selectAllCustomers()).hasSize(2);
+    }
+
+    @Test
+    void selectCustomersPagesById() {
+        // Given
+        underTest.insertCustomer(new Customer("Ali", "ali@mail.com", 20));
+
+        // When
+        var actual = underTest.selectCustomers(1L, 1);
+
+        // Then
+        assertThat(actual).extracting(Customer::getId).containsExactly(2L);
+    }
+
+    @Test
+    void searchCustomersFiltersSortsAndPages() {
+        // Given
+        underTest.insertCustomer(new Customer("Alexis", "alexis@mail.com", 40));
+        underTest.insertCustomer(new Customer("Alina", "alina@GMAIL.com", 19));
+        CustomerSearch search = new CustomerSearch("al", "gmail.com", 18, 30, CustomerSearch.Sort.AGE, false, null);
+
+        // When
+        var firstPage = underTest.searchCustomers(search, 1);
+        var secondPage = underTest.searchCustomers(search.after(firstPage.get(0)), 1);
+        var thirdPage = underTest.searchCustomers(search.after(secondPage.get(0)), 1);
+
+        // Then
+        assertThat(firstPage).extracting(Customer::getName).containsExactly("Alina");
+        assertThat(secondPage).extracting(Customer::getName).containsExactly("Alex");
+        assertThat(thirdPage).isEmpty();
+    }
+
+    @Test
+    void findSimilarCustomersRanksMisspelledNamesAndEmails() {
+        // Given
+        underTest.insertCustomer(new Customer("Alexandra", "sandra@mail.com", 30));
+        underTest.insertCustomer(new Customer("Bob", "alexa@mail.com", 40));
+
+        // When
+        var actual = underTest.findSimilarCustomers("Alexa", 10);
+
+        // Then
+        // the similarities PostgreSQL computes for the same rows
+        assertThat(actual).extracting(match -> match.customer().getName())
+                .containsExactly("Alex", "Alexandra", "Bob");
+        assertThat(actual).extracting(CustomerMatch::similarity)
+                .containsExactly(0.5714286f, 0.45454547f, 0.4f);
+        assertThat(underTest.findSimilarCustomers("Alexa", 1)).hasSize(1);
+    }
+
+    @Test
+    void findSimilarCustomersFollowsUpdatesAndDeletes() {
+        // Given
+        Customer changes = new Customer();
+        changes.setId(1L);
+        changes.setName("Jamal");
+        underTest.deleteCustomerById(2L);
+
+        // When
+        underTest.updateCustomer(changes);
+
+        // Then
+        // exactly at the threshold
+        assertThat(underTest.findSimilarCustomers("Jamile", 10))
+                .extracting(CustomerMatch::similarity, match -> match.customer().getName())
+                .containsExactly(tuple(0.3f, "Jamal"));
+        assertThat(underTest.findSimilarCustomers("Alexa", 10)).isEmpty();
+    }
+
+    @Test
+    void returnedCustomersAreCopies() {
+        // Given
+        Customer customer = underTest.selectCustomerById(1L).orElseThrow();
+
+        // When
+        customer.setName("Changed");
+
+        // Then
+        assertThat(underTest.selectCustomerById(1L).orElseThrow().getName()).isEqualTo("Alex");
+    }
+
+    @Test
+    void updateCustomerReplacesRecordAndEmailIndex() {
+        // Given
+        Customer changes = new Customer();
+        changes.setId(1L);
+        changes.setEmail("alexander@gmail.com");
+
+        // When
+        underTest.updateCustomer(changes);
+
+        // Then
+        assertThat(underTest.selectAllCustomers()).hasSize(2);
+        assertThat(underTest.selectCustomerById(1L).orElseThrow().getEmail()).isEqualTo("alexander@gmail.com");
+        assertThat(underTest.selectCustomerById(1L).orElseThrow().getName()).isEqualTo("Alex");
+        assertThat(underTest.existsPersonWithEmail("alex@gmail.com")).isFalse();
+        assertThat(underTest.existsPersonWithEmail("Alexander@gmail.com")).isTrue();
+    }
+
+    @Test
+    void updateCustomerWillThrowWhenEmailTaken() {
+        // Given
+        Customer changes = new Customer();
+        changes.setId(1L);
+        changes.setEmail("jamile@gmail.com");
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(changes))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(underTest.selectCustomerById(1L).orElseThrow().getEmail()).isEqualTo("alex@gmail.com");
+    }
+
+    @Test
+    void deleteCustomerByIdFreesEmail() {
+        // When
+        var deleted = underTest.deleteCustomerById(1L);
+
+        // Then
+        assertThat(deleted).hasValueSatisfying(customer -> assertThat(customer.getEmail()).isEqualTo("alex@gmail.com"));
+        assertThat(underTest.deleteCustomerById(1L)).isEmpty();
+        assertThat(underTest.existsPersonWithId(1L)).isFalse();
+        assertThat(underTest.existsPersonWithEmail("alex@gmail.com")).isFalse();
+        assertThat(underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 21))).isTrue();
+    }
+
+    @Test
+    void concurrentWritersKeepIndexesConsistent() throws Exception {
+        // Given
+        int threads = 8;
+        int customersPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < customersPerThread; i++) {
+                    Customer customer = new Customer("name", UUID.randomUUID() + "@mail.com", 20);
+                    underTest.insertCustomer(customer);
+                    // every thread also fights over the same email
+                    underTest.insertCustomer(new Customer("name", "shared@mail.com", 20));
+                    if (i % 2 == 0) {
+                        underTest.deleteCustomerById(customer.getId());
+                    } else {
+                        Customer changes = new Customer();
+                        changes.setId(customer.getId());
+                        changes.setAge(30);
+                        underTest.updateCustomer(changes);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        // Then
+        List<Customer> all = underTest.selectAllCustomers();
+        assertThat(all).hasSize(2 + 1 + threads * customersPerThread / 2);
+        assertThat(all).extracting(Customer::getId).isSorted().doesNotHaveDuplicates();
+        assertThat(all).allMatch(customer -> underTest.existsPersonWithEmail(customer.getEmail()));
+    }
+}
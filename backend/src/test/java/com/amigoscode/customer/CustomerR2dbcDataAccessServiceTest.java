@@ -0,0 +1,183 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestcontainers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerR2dbcDataAccessServiceTest extends AbstractTestcontainers {
+
+    private CustomerR2dbcDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(POSTGRE_SQL_CONTAINER.getJdbcUrl());
+        dataSourceProperties.setUsername(POSTGRE_SQL_CONTAINER.getUsername());
+        dataSourceProperties.setPassword(POSTGRE_SQL_CONTAINER.getPassword());
+        underTest = new CustomerR2dbcDataAccessService(dataSourceProperties, new CustomerR2dbcProperties(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.destroy();
+    }
+
+    private Customer newCustomer() {
+        return new Customer(
+                FAKER.name().fullName(),
+                FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+                20
+        );
+    }
+
+    @Test
+    void insertCustomerSetsIdAndSelectCustomerByIdFindsIt() {
+        // Given
+        Customer customer = newCustomer();
+
+        // When
+        StepVerifier.create(underTest.insertCustomer(customer))
+                .expectNext(true)
+                .verifyComplete();
+
+        // Then
+        assertThat(customer.getId()).isNotNull();
+        StepVerifier.create(underTest.selectCustomerById(customer.getId()))
+                .expectNext(customer)
+                .verifyComplete();
+    }
+
+    @Test
+    void insertCustomerReturnsFalseForDuplicateEmail() {
+        // Given
+        Customer customer = newCustomer();
+        underTest.insertCustomer(customer).block();
+        Customer duplicate = new Customer("other", customer.getEmail(), 30);
+
+        // When
+        // Then
+        StepVerifier.create(underTest.insertCustomer(duplicate))
+                .expectNext(false)
+                .verifyComplete();
+        assertThat(duplicate.getId()).isNull();
+    }
+
+    @Test
+    void selectCustomerByIdIsEmptyForUnknownId() {
+        StepVerifier.create(underTest.selectCustomerById(-1L))
+                .verifyComplete();
+    }
+
+    @Test
+    void selectCustomersPagesById() {
+        // Given
+        Customer first = newCustomer();
+        Customer second = newCustomer();
+        underTest.insertCustomer(first).block();
+        underTest.insertCustomer(second).block();
+
+        // When
+        // Then
+        StepVerifier.create(underTest.selectCustomers(first.getId() - 1, 2))
+                .expectNext(first, second)
+                .verifyComplete();
+    }
+
+    @Test
+    void selectAllCustomersStreamsWithBackpressure() {
+        // Given
+        underTest.insertCustomers(List.of(newCustomer(), newCustomer(), newCustomer())).block();
+
+        // When
+        // Then
+        StepVerifier.create(underTest.selectAllCustomers(), 1)
+                .expectNextCount(1)
+                .thenRequest(2)
+                .expectNextCount(2)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void insertCustomersSetsIdsOnInsertedRowsOnly() {
+        // Given
+        Customer existing = newCustomer();
+        underTest.insertCustomer(existing).block();
+        Customer fresh = newCustomer();
+        Customer duplicate = new Customer("other", existing.getEmail(), 30);
+
+        // When
+        // Then
+        StepVerifier.create(underTest.insertCustomers(List.of(fresh, duplicate)))
+                .expectNext(1)
+                .verifyComplete();
+        assertThat(fresh.getId()).isNotNull();
+        assertThat(duplicate.getId()).isNull();
+    }
+
+    @Test
+    void importCustomers() {
+        // Given
+        Flux<Customer> customers = Flux.range(0, CustomerDAO.STREAM_PAGE_SIZE + 1).map(i -> newCustomer());
+
+        // When
+        // Then
+        StepVerifier.create(underTest.importCustomers(customers))
+                .expectNext((long) CustomerDAO.STREAM_PAGE_SIZE + 1)
+                .verifyComplete();
+    }
+
+    @Test
+    void existsPersonWithEmailAndId() {
+        // Given
+        Customer customer = newCustomer();
+        underTest.insertCustomer(customer).block();
+
+        // When
+        // Then
+        StepVerifier.create(underTest.existsPersonWithEmail(customer.getEmail())).expectNext(true).verifyComplete();
+        StepVerifier.create(underTest.existsPersonWithEmail("unknown-" + UUID.randomUUID())).expectNext(false).verifyComplete();
+        StepVerifier.create(underTest.existsPersonWithId(customer.getId())).expectNext(true).verifyComplete();
+        StepVerifier.create(underTest.existsPersonWithId(-1L)).expectNext(false).verifyComplete();
+    }
+
+    @Test
+    void deleteCustomerById() {
+        // Given
+        Customer customer = newCustomer();
+        underTest.insertCustomer(customer).block();
+
+        // When
+        // Then
+        StepVerifier.create(underTest.deleteCustomerById(customer.getId())).expectNext(true).verifyComplete();
+        StepVerifier.create(underTest.deleteCustomerById(customer.getId())).expectNext(false).verifyComplete();
+    }
+
+    @Test
+    void updateCustomerWritesOnlyChangedFields() {
+        // Given
+        Customer customer = newCustomer();
+        underTest.insertCustomer(customer).block();
+        Customer changes = new Customer();
+        changes.setId(customer.getId());
+        changes.setAge(42);
+
+        // When
+        StepVerifier.create(underTest.updateCustomer(changes)).verifyComplete();
+
+        // Then
+        customer.setAge(42);
+        StepVerifier.create(underTest.selectCustomerById(customer.getId()))
+                .expectNext(customer)
+                .verifyComplete();
+    }
+}
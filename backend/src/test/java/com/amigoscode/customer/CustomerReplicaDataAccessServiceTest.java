@@ -0,0 +1,127 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.datasource.ReplicaRoutingContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerReplicaDataAccessServiceTest {
+
+    @Mock
+    private CustomerDAO delegate;
+
+    private Optional<Customer> routedTo(boolean readOnly) {
+        return Optional.of(new Customer(1L, "Alex", "alex@mail.com", readOnly ? 1 : 0));
+    }
+
+    private void answerWithRoute() {
+        when(delegate.selectCustomerById(1L)).thenAnswer(invocation -> routedTo(ReplicaRoutingContext.isReadOnly()));
+    }
+
+    @Test
+    void readsAreReadOnly() {
+        // Given
+        var underTest = new CustomerReplicaDataAccessService(delegate, Duration.ofSeconds(5), 100);
+        answerWithRoute();
+        when(delegate.existsPersonWithEmail("alex@mail.com"))
+                .thenAnswer(invocation -> ReplicaRoutingContext.isReadOnly());
+
+        // When
+        var customer = underTest.selectCustomerById(1L);
+        var exists = underTest.existsPersonWithEmail("alex@mail.com");
+
+        // Then
+        assertThat(customer).isEqualTo(routedTo(true));
+        assertThat(exists).isTrue();
+        assertThat(ReplicaRoutingContext.isReadOnly()).isFalse();
+    }
+
+    @Test
+    void writesAreNotReadOnly() {
+        // Given
+        var underTest = new CustomerReplicaDataAccessService(delegate, Duration.ofSeconds(5), 100);
+        when(delegate.deleteCustomerById(1L)).thenAnswer(invocation -> routedTo(ReplicaRoutingContext.isReadOnly()));
+
+        // When
+        var actual = underTest.deleteCustomerById(1L);
+
+        // Then
+        assertThat(actual).isEqualTo(routedTo(false));
+    }
+
+    @Test
+    void readsOfRecentlyWrittenKeysStayOnPrimary() {
+        // Given
+        var underTest = new CustomerReplicaDataAccessService(delegate, Duration.ofSeconds(5), 100);
+        answerWithRoute();
+        when(delegate.existsPersonWithEmail("alex@mail.com"))
+                .thenAnswer(invocation -> ReplicaRoutingContext.isReadOnly());
+        Customer update = new Customer(1L, null, "Alex@Mail.com", null);
+
+        // When
+        underTest.updateCustomer(update);
+        var customer = underTest.selectCustomerById(1L);
+        var readOnly = underTest.existsPersonWithEmail("alex@mail.com");
+
+        // Then
+        assertThat(customer).isEqualTo(routedTo(false));
+        assertThat(readOnly).isFalse();
+    }
+
+    @Test
+    void oldEmailOfUpdatedCustomerStaysOnPrimary() {
+        // Given
+        var underTest = new CustomerReplicaDataAccessService(delegate, Duration.ofSeconds(5), 100);
+        when(delegate.updateCustomer(any())).thenReturn(Optional.of(new Customer(1L, "Alex", "Alex@Mail.com", 20)));
+        when(delegate.existsPersonWithEmail(any())).thenAnswer(invocation -> ReplicaRoutingContext.isReadOnly());
+
+        // When
+        underTest.updateCustomer(new Customer(1L, null, "alex@outlook.com", null));
+        var oldEmailReadOnly = underTest.existsPersonWithEmail("alex@mail.com");
+        var newEmailReadOnly = underTest.existsPersonWithEmail("alex@outlook.com");
+
+        // Then
+        assertThat(oldEmailReadOnly).isFalse();
+        assertThat(newEmailReadOnly).isFalse();
+    }
+
+    @Test
+    void emailOfDeletedCustomerStaysOnPrimary() {
+        // Given
+        var underTest = new CustomerReplicaDataAccessService(delegate, Duration.ofSeconds(5), 100);
+        when(delegate.deleteCustomerById(1L)).thenReturn(Optional.of(new Customer(1L, "Alex", "alex@mail.com", 20)));
+        when(delegate.existsPersonWithEmail(any())).thenAnswer(invocation -> ReplicaRoutingContext.isReadOnly());
+
+        // When
+        underTest.deleteCustomerById(1L);
+        var deletedEmailReadOnly = underTest.existsPersonWithEmail("ALEX@mail.com");
+        var otherEmailReadOnly = underTest.existsPersonWithEmail("sam@mail.com");
+
+        // Then
+        assertThat(deletedEmailReadOnly).isFalse();
+        assertThat(otherEmailReadOnly).isTrue();
+    }
+
+    @Test
+    void zeroWindowDisablesStickiness() {
+        // Given
+        var underTest = new CustomerReplicaDataAccessService(delegate, Duration.ZERO, 100);
+        answerWithRoute();
+
+        // When
+        underTest.updateCustomer(new Customer(1L, "Alex", "alex@mail.com", 20));
+        var actual = underTest.selectCustomerById(1L);
+
+        // Then
+        assertThat(actual).isEqualTo(routedTo(true));
+    }
+}
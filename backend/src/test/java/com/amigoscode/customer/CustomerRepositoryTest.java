@@ -6,8 +6,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -18,6 +21,9 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
     @Autowired
     private CustomerRepository customerRepositoryUnderTest;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     void setUp() {
         customerRepositoryUnderTest.deleteAll();
@@ -65,7 +71,7 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
 
         customerRepositoryUnderTest.save(customer);
 
-        Integer id = customerRepositoryUnderTest.findAll().stream()
+        Long id = customerRepositoryUnderTest.findAll().stream()
                 .filter(c -> c.getEmail().equalsIgnoreCase(email))
                 .map(Customer::getId)
                 .findFirst()
@@ -81,7 +87,7 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
     @Test
     void existsCustomerByIdWhenIdNotPresent() {
         // Given
-        Integer id = -1;
+        Long id = -1L;
 
         // When
         var actual = customerRepositoryUnderTest.existsCustomerById(id);
@@ -90,4 +96,136 @@ class CustomerRepositoryTest extends AbstractTestcontainers {
         assertThat(actual).isFalse();
     }
 
-}
\ No newline at end of file
+    @Test
+    void deleteCustomerById() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                20
+        );
+
+        customerRepositoryUnderTest.save(customer);
+
+        // When
+        var actual = customerRepositoryUnderTest.deleteCustomerById(customer.getId());
+
+        // Then
+        assertThat(actual).isEqualTo(1);
+        assertThat(customerRepositoryUnderTest.existsCustomerById(customer.getId())).isFalse();
+    }
+
+    @Test
+    void deleteCustomerByIdWhenIdNotPresent() {
+        // Given
+        Long id = -1L;
+
+        // When
+        var actual = customerRepositoryUnderTest.deleteCustomerById(id);
+
+        // Then
+        assertThat(actual).isZero();
+    }
+
+    @Test
+    void findForUpdateById() {
+        // Given
+        String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+        Customer customer = new Customer(
+                FAKER.name().fullName(),
+                email,
+                20
+        );
+
+        customerRepositoryUnderTest.save(customer);
+
+        // When
+        var actual = customerRepositoryUnderTest.findForUpdateById(customer.getId());
+
+        // Then
+        assertThat(actual).hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(email));
+        assertThat(customerRepositoryUnderTest.findForUpdateById(-1L)).isEmpty();
+    }
+
+    @Test
+    void saveAllAllocatesIdsInBlocks() {
+        // Given
+        int count = Customer.CUSTOMER_ID_ALLOCATION_SIZE + 10;
+        List<Customer> customers = IntStream.range(0, count)
+                .mapToObj(i -> new Customer(FAKER.name().fullName(), UUID.randomUUID() + "@amigoscode.com", 20))
+                .toList();
+        long before = lastSequenceValue();
+
+        // When
+        customerRepositoryUnderTest.saveAllAndFlush(customers);
+
+        // Then
+        // one nextval per block instead of one per row
+        long nextvalCalls = (lastSequenceValue() - before) / Customer.CUSTOMER_ID_ALLOCATION_SIZE;
+        assertThat(nextvalCalls).isLessThanOrEqualTo(2);
+        assertThat(customers).extracting(Customer::getId).doesNotHaveDuplicates().doesNotContainNull();
+    }
+
+    private long lastSequenceValue() {
+        return jdbcTemplate.queryForObject("SELECT last_value FROM " + Customer.CUSTOMER_ID_SEQUENCE, Long.class);
+    }
+
+    @Test
+    void searchPagesByKeyset() {
+        // Given
+        String domain = UUID.randomUUID() + ".search.test";
+        Customer alex = new Customer("Alex", "alex@" + domain, 20);
+        Customer bob = new Customer("Bob", "bob@" + domain, 30);
+        Customer carol = new Customer("Carol", "carol@" + domain, 30);
+        customerRepositoryUnderTest.saveAllAndFlush(List.of(carol, bob, alex));
+        CustomerSearch search = new CustomerSearch(null, domain.toUpperCase(), 25, null,
+                CustomerSearch.Sort.AGE, true, null);
+
+        // When
+        var firstPage = customerRepositoryUnderTest.search(search, 1);
+        var secondPage = customerRepositoryUnderTest.search(search.after(firstPage.get(0)), 10);
+        var byName = customerRepositoryUnderTest.search(
+                new CustomerSearch("a", domain, null, null, CustomerSearch.Sort.NAME, false, null), 10);
+
+        // Then
+        // bob and carol are the same age, so the later id comes first
+        assertThat(firstPage).containsExactly(bob);
+        assertThat(secondPage).containsExactly(carol);
+        assertThat(byName).containsExactly(alex);
+    }
+
+    @Test
+    void findSimilarRanksByTrigramSimilarity() {
+        // Given
+        Customer alexandra = new Customer("Alexandra", "alexandra@mail.com", 20);
+        Customer bob = new Customer("Bob", "alexa@mail.com", 30);
+        customerRepositoryUnderTest.saveAllAndFlush(List.of(alexandra, bob, new Customer("Carol", "carol@mail.com", 40)));
+
+        // When
+        var actual = customerRepositoryUnderTest.findSimilar("Alexa", 10);
+
+        // Then
+        assertThat(actual).extracting(CustomerMatch::customer).containsExactly(alexandra, bob);
+        assertThat(actual).extracting(CustomerMatch::similarity).containsExactly(0.45454547f, 0.4f);
+    }
+
+    @Test
+    void countByAgeAndEmailDomain() {
+        // Given
+        customerRepositoryUnderTest.saveAllAndFlush(List.of(
+                new Customer("Alex", "alex@MAIL.com", 20),
+                new Customer("Bob", "bob@mail.com", 20),
+                new Customer("Carol", "carol@gmail.com", 30)
+        ));
+
+        // When
+        var byAge = customerRepositoryUnderTest.countByAge();
+        var byEmailDomain = customerRepositoryUnderTest.countByEmailDomain();
+
+        // Then
+        assertThat(byAge).containsExactlyInAnyOrder(new Object[]{20, 2L}, new Object[]{30, 1L});
+        assertThat(byEmailDomain).containsExactlyInAnyOrder(new Object[]{"mail.com", 2L}, new Object[]{"gmail.com", 1L});
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.amigoscode.customer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerRoutingDataAccessServiceTest {
+
+    private CustomerRoutingDataAccessService underTest;
+    private SimpleMeterRegistry meterRegistry;
+    @Mock
+    private CustomerDAO reads;
+    @Mock
+    private CustomerDAO writes;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CustomerRoutingDataAccessService("list", reads, "jdbc", writes, meterRegistry, Tracer.NOOP);
+    }
+
+    @Test
+    void readsGoToReadBackend() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@mail.com", 20);
+        when(reads.selectCustomerById(1L)).thenReturn(Optional.of(customer));
+
+        // When
+        var actual = underTest.selectCustomerById(1L);
+
+        // Then
+        assertThat(actual).contains(customer);
+        verifyNoInteractions(writes);
+        var timer = meterRegistry.get(CustomerRoutingDataAccessService.METRIC_NAME)
+                .tag("operation", "selectCustomerById")
+                .tag("outcome", "found")
+                .tag("route", "read")
+                .tag("backend", "list")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    void writesGoToWriteBackend() {
+        // Given
+        Customer customer = new Customer("Alex", "alex@mail.com", 20);
+        when(writes.insertCustomer(customer)).thenReturn(true);
+
+        // When
+        var actual = underTest.insertCustomer(customer);
+
+        // Then
+        assertThat(actual).isTrue();
+        verifyNoInteractions(reads);
+        var timer = meterRegistry.get(CustomerRoutingDataAccessService.METRIC_NAME)
+                .tag("operation", "insertCustomer")
+                .tag("outcome", "success")
+                .tag("route", "write")
+                .tag("backend", "jdbc")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedCallsAreTimedAndRethrown() {
+        // Given
+        when(writes.deleteCustomerById(1L)).thenThrow(new IllegalStateException("boom"));
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.deleteCustomerById(1L))
+                .isInstanceOf(IllegalStateException.class);
+        var timer = meterRegistry.get(CustomerRoutingDataAccessService.METRIC_NAME)
+                .tag("operation", "deleteCustomerById")
+                .tag("outcome", "error")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+        verify(writes).deleteCustomerById(1L);
+    }
+
+    @Test
+    void backendIsResolvedByQualifier() {
+        // Given
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("jdbc", writes);
+        beanFactory.addBean("list", reads);
+
+        // When
+        var actual = CustomerDataAccessConfig.backend(beanFactory, "reads", "list");
+
+        // Then
+        assertThat(actual).isSameAs(reads);
+    }
+
+    @Test
+    void willThrowWhenBackendIsUnknown() {
+        // Given
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("jdbc", writes);
+
+        // When
+        // Then
+        assertThatThrownBy(() -> CustomerDataAccessConfig.backend(beanFactory, "writes", "mongo"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("customer.dao.writes [mongo] is not a CustomerDAO backend, expected one of [jdbc]");
+    }
+
+    @Test
+    void sqlBackendsCanBeCombined() {
+        CustomerDataAccessConfig.requireSharedData(new CustomerDaoProperties("jdbc", "jpa"));
+        CustomerDataAccessConfig.requireSharedData(new CustomerDaoProperties("list", "list"));
+    }
+
+    @Test
+    void willThrowWhenListBackendIsCombinedWithAnother() {
+        assertThatThrownBy(() -> CustomerDataAccessConfig.requireSharedData(new CustomerDaoProperties("list", "jdbc")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("customer.dao.reads [list] would not see the customers written by customer.dao.writes [jdbc], the list backend keeps them in memory");
+        assertThatThrownBy(() -> CustomerDataAccessConfig.requireSharedData(new CustomerDaoProperties("jpa", "list")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
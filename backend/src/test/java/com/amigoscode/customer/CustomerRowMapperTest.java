@@ -21,7 +21,7 @@ class CustomerRowMapperTest {
         CustomerRowMapper underTest = new CustomerRowMapper();
         ResultSet rs = Mockito.mock(ResultSet.class);
 
-        Mockito.when(rs.getInt("id")).thenReturn(1);
+        Mockito.when(rs.getLong("id")).thenReturn(1L);
         Mockito.when(rs.getString("name")).thenReturn("Alex");
         Mockito.when(rs.getString("email")).thenReturn("hismail");
         Mockito.when(rs.getInt("age")).thenReturn(20);
@@ -30,7 +30,7 @@ class CustomerRowMapperTest {
         Customer actual = underTest.mapRow(rs, 1);
 
         // Then
-        Customer expected = new Customer(1, "Alex", "hismail", 20);
+        Customer expected = new Customer(1L, "Alex", "hismail", 20);
 
         assertThat(actual).isEqualTo(expected);
     }
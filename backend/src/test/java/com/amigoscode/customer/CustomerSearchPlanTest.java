@@ -0,0 +1,106 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.AbstractTestcontainers;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Explains the JDBC searches against a million customers and asserts that every filter and
+ * sort, and the fuzzy search, is answered from an index instead of a scan of the table.
+ */
+class CustomerSearchPlanTest extends AbstractTestcontainers {
+
+    private static final int ROWS = 1_000_000;
+    private static final int LIMIT = 50;
+
+    private static CustomerSearch search(String namePrefix, String emailDomain, Integer minAge, Integer maxAge,
+                                         CustomerSearch.Sort sort, boolean descending) {
+        return new CustomerSearch(namePrefix, emailDomain, minAge, maxAge, sort, descending, null);
+    }
+
+    @Test
+    void searchesUseIndexesAtMillionsOfRows() {
+        // Given
+        Customer after = new Customer(500_000L, "Customer 500000", null, 50);
+        List<CustomerSearch> searches = List.of(
+                search("customer 4242", null, null, null, CustomerSearch.Sort.ID, false),
+                search(null, "domain42.test", null, null, CustomerSearch.Sort.ID, false),
+                search(null, null, 30, 31, CustomerSearch.Sort.AGE, false),
+                search(null, null, null, null, CustomerSearch.Sort.NAME, true).after(after),
+                search(null, null, 30, null, CustomerSearch.Sort.AGE, true).after(after)
+        );
+
+        // When
+        List<String> plans = explain(
+                "SELECT 'Customer ' || i, 'customer' || i || '@domain' || i % 1000 || '.test', 16 + i % 100",
+                underTest -> searches.forEach(search -> underTest.searchCustomers(search, LIMIT))
+        );
+
+        // Then
+        assertThat(plans).hasSize(searches.size()).allSatisfy(plan -> assertThat(plan)
+                .contains("Index")
+                .doesNotContain("Seq Scan"));
+    }
+
+    @Test
+    void fuzzySearchUsesTrigramIndexesAtMillionsOfRows() {
+        // Given
+        // two words of random letters per name, rather than names that all share a word
+        String name = "translate(substr(md5(i::text), 1, 8), '0123456789', 'ghijklmnop') || ' ' || "
+                + "translate(substr(md5(i::text), 9, 8), 'abcdef0123456789', 'qrstuvwxyzghijkl')";
+        String misspelled = getJdbcTemplate().queryForObject("SELECT " + name.replace("i::text", "'4242'"),
+                String.class).substring(1);
+
+        // When
+        List<String> plans = explain(
+                "SELECT " + name + ", 'customer' || i || '@domain' || i % 1000 || '.test', 16 + i % 100",
+                underTest -> underTest.findSimilarCustomers(misspelled, LIMIT)
+        );
+
+        // Then
+        assertThat(plans).singleElement().satisfies(plan -> assertThat(plan)
+                .contains("customer_name_trgm_idx", "customer_email_trgm_idx")
+                .doesNotContain("Seq Scan"));
+    }
+
+    /**
+     * Fills the table with {@code ROWS} customers selected by {@code rows} from
+     * generate_series(1, ROWS) i, and explains the statements the JDBC DAO sends meanwhile.
+     */
+    private List<String> explain(String rows, Consumer<CustomerJdbcDataAccessService> statements) {
+        JdbcTemplate jdbcTemplate = getJdbcTemplate();
+        TransactionTemplate transaction = new TransactionTemplate(
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource())
+        );
+        // the rows are rolled back, so the other tests keep a small table
+        return transaction.execute(status -> {
+            status.setRollbackOnly();
+            jdbcTemplate.update("INSERT INTO customer(name, email, age) " + rows + " FROM generate_series(1, ?) i",
+                    ROWS);
+            jdbcTemplate.execute("ANALYZE customer");
+
+            // EXPLAIN every statement the search sends
+            List<String> explained = new ArrayList<>();
+            JdbcTemplate explaining = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+                @Override
+                public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+                    explained.add(String.join("\n", super.queryForList("EXPLAIN " + sql, String.class, args)));
+                    return List.of();
+                }
+            };
+            CustomerJdbcDataAccessService underTest =
+                    new CustomerJdbcDataAccessService(explaining, new CustomerRowMapper());
+            statements.accept(underTest);
+            return explained;
+        });
+    }
+}
@@ -4,6 +4,8 @@ import com.amigoscode.exception.DuplicateResourceException;
 import com.amigoscode.exception.RequestValidationException;
 import com.amigoscode.exception.ResourceNotFoundException;
 import com.github.javafaker.Faker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,12 +15,21 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -29,6 +40,7 @@ class CustomerServiceTest {
     private static final Faker FAKER = Faker.instance();
 
     private CustomerService underTest;
+    private SimpleMeterRegistry meterRegistry;
     @Mock
     private CustomerDAO customerDAO;
 //    private AutoCloseable autoCloseable;   // instead autocloseable boilerplate code
@@ -36,7 +48,9 @@ class CustomerServiceTest {
     @BeforeEach
     void setUp() {
 //        autoCloseable = MockitoAnnotations.openMocks(this);   // instead autocloseable boilerplate code
-        underTest = new CustomerService(customerDAO);
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new CustomerService(customerDAO, new CustomerBulkProperties(2), Optional.empty(), meterRegistry,
+                Tracer.NOOP);
     }
 
 //    @AfterEach
@@ -53,10 +67,193 @@ class CustomerServiceTest {
         verify(customerDAO).selectAllCustomers();
     }
 
+    @Test
+    void getCustomersReturnsNextCursorWhenMoreCustomersExist() {
+        // Given
+        Customer first = new Customer(1L, "Alex", "alex@mail.com", 20);
+        Customer second = new Customer(2L, "Jamila", "jamila@mail.com", 21);
+        Customer third = new Customer(3L, "Sam", "sam@mail.com", 22);
+        Mockito.when(customerDAO.selectCustomers(0L, 3)).thenReturn(List.of(first, second, third));
+
+        // When
+        CustomerPage actual = underTest.getCustomers(null, 2);
+
+        // Then
+        assertThat(actual.customers()).containsExactly(first, second);
+        assertThat(actual.nextCursor()).isEqualTo(second.getId());
+    }
+
+    @Test
+    void getCustomersReturnsNoNextCursorOnLastPage() {
+        // Given
+        long after = 5L;
+        Customer customer = new Customer(6L, "Alex", "alex@mail.com", 20);
+        Mockito.when(customerDAO.selectCustomers(after, CustomerService.DEFAULT_PAGE_SIZE + 1))
+                .thenReturn(List.of(customer));
+
+        // When
+        CustomerPage actual = underTest.getCustomers(after, null);
+
+        // Then
+        assertThat(actual.customers()).containsExactly(customer);
+        assertThat(actual.nextCursor()).isNull();
+    }
+
+    @Test
+    void willThrowWhenGetCustomersLimitIsOutOfRange() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getCustomers(null, CustomerService.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("limit must be between 1 and %s".formatted(CustomerService.MAX_PAGE_SIZE));
+
+        verify(customerDAO, never()).selectCustomers(any(), anyInt());
+    }
+
+    @Test
+    void searchCustomersContinuesFromNextCursor() {
+        // Given
+        Customer first = new Customer(7L, "Alex", "alex@mail.com", 20);
+        Customer second = new Customer(3L, "Bob", "bob@mail.com", 20);
+        CustomerSearchRequest request = new CustomerSearchRequest(
+                "a", "mail.com", 18, 65, "name", "desc", null, 1);
+        ArgumentCaptor<CustomerSearch> searchCaptor = ArgumentCaptor.forClass(CustomerSearch.class);
+        Mockito.when(customerDAO.searchCustomers(searchCaptor.capture(), eq(2)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(second));
+
+        // When
+        CustomerSearchPage firstPage = underTest.searchCustomers(request);
+        CustomerSearchPage secondPage = underTest.searchCustomers(new CustomerSearchRequest(
+                "a", "mail.com", 18, 65, "name", "desc", firstPage.nextCursor(), 1));
+
+        // Then
+        assertThat(firstPage.customers()).containsExactly(first);
+        assertThat(secondPage.customers()).containsExactly(second);
+        assertThat(secondPage.nextCursor()).isNull();
+        CustomerSearch continued = searchCaptor.getAllValues().get(1);
+        assertThat(continued.sort()).isEqualTo(CustomerSearch.Sort.NAME);
+        assertThat(continued.descending()).isTrue();
+        assertThat(continued.after().getId()).isEqualTo(first.getId());
+        assertThat(continued.after().getName()).isEqualTo(first.getName());
+        assertThat(calls("searchCustomers", "success")).isEqualTo(2);
+    }
+
+    @Test
+    void willThrowWhenSearchCursorBelongsToAnotherSort() {
+        // Given
+        Customer first = new Customer(7L, "Alex", "alex@mail.com", 20);
+        Mockito.when(customerDAO.searchCustomers(any(), anyInt()))
+                .thenReturn(List.of(first, new Customer(8L, "Bob", "bob@mail.com", 21)));
+        String cursor = underTest.searchCustomers(
+                new CustomerSearchRequest(null, null, null, null, "age", null, null, 1)).nextCursor();
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.searchCustomers(
+                new CustomerSearchRequest(null, null, null, null, "name", null, cursor, 1)))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("cursor does not belong to this search");
+        assertThatThrownBy(() -> underTest.searchCustomers(
+                new CustomerSearchRequest(null, null, null, null, "age", null, "not a cursor", 1)))
+                .isInstanceOf(RequestValidationException.class);
+        assertThat(calls("searchCustomers", "invalid")).isEqualTo(2);
+    }
+
+    @Test
+    void willThrowWhenSearchParametersAreInvalid() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.searchCustomers(
+                new CustomerSearchRequest(null, null, 40, 30, null, null, null, null)))
+                .hasMessage("minAge must not be greater than maxAge");
+        assertThatThrownBy(() -> underTest.searchCustomers(
+                new CustomerSearchRequest(null, null, null, null, "email", null, null, null)))
+                .hasMessage("sort must be one of id, name, age");
+        assertThatThrownBy(() -> underTest.searchCustomers(
+                new CustomerSearchRequest(null, null, null, null, null, "up", null, null)))
+                .hasMessage("direction must be asc or desc");
+
+        verify(customerDAO, never()).searchCustomers(any(), anyInt());
+    }
+
+    @Test
+    void findSimilarCustomersCapsResults() {
+        // Given
+        CustomerMatch match = new CustomerMatch(new Customer(1L, "Alex", "alex@mail.com", 20), 0.5f);
+        Mockito.when(customerDAO.findSimilarCustomers("alx", CustomerService.DEFAULT_SIMILAR_LIMIT))
+                .thenReturn(List.of(match));
+
+        // When
+        var actual = underTest.findSimilarCustomers(" alx ", null);
+
+        // Then
+        assertThat(actual).containsExactly(match);
+        assertThat(calls("findSimilarCustomers", "success")).isEqualTo(1);
+    }
+
+    @Test
+    void willThrowWhenSimilarCustomersQueryIsInvalid() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.findSimilarCustomers(" ", null))
+                .isInstanceOf(RequestValidationException.class)
+                .hasMessage("q must be between 1 and %s characters".formatted(CustomerService.MAX_SIMILAR_QUERY_LENGTH));
+        assertThatThrownBy(() -> underTest.findSimilarCustomers(
+                "a".repeat(CustomerService.MAX_SIMILAR_QUERY_LENGTH + 1), null))
+                .isInstanceOf(RequestValidationException.class);
+        assertThatThrownBy(() -> underTest.findSimilarCustomers("alx", CustomerService.MAX_SIMILAR_LIMIT + 1))
+                .hasMessage("limit must be between 1 and %s".formatted(CustomerService.MAX_SIMILAR_LIMIT));
+
+        verify(customerDAO, never()).findSimilarCustomers(any(), anyInt());
+        assertThat(calls("findSimilarCustomers", "invalid")).isEqualTo(3);
+    }
+
+    @Test
+    void getStatsFromAggregates() {
+        // Given
+        CustomerAggregates aggregates = Mockito.mock(CustomerAggregates.class);
+        CustomerStats stats = new CustomerStats(2, List.of(), List.of(), null);
+        Mockito.when(aggregates.stats()).thenReturn(stats);
+        underTest = new CustomerService(customerDAO, new CustomerBulkProperties(2), Optional.of(aggregates),
+                meterRegistry, Tracer.NOOP);
+
+        // When
+        var actual = underTest.getStats();
+
+        // Then
+        assertThat(actual).isEqualTo(stats);
+        verify(customerDAO, never()).selectAllCustomers();
+        assertThat(calls("getStats", "success")).isEqualTo(1);
+    }
+
+    @Test
+    void willThrowWhenStatsAreDisabled() {
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.getStats())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Customer statistics are disabled");
+        assertThat(calls("getStats", "not_found")).isEqualTo(1);
+    }
+
+    @Test
+    void exportCustomers() {
+        // Given
+        Consumer<Customer> consumer = customer -> {
+        };
+
+        // When
+        underTest.exportCustomers(consumer);
+
+        // Then
+        verify(customerDAO).streamAllCustomers(consumer);
+    }
+
     @Test
     void canGetCustomer() {
         // Given
-        int id = 10;
+        long id = 10L;
         Customer customer = new Customer();
         Mockito.when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
 
@@ -67,10 +264,18 @@ class CustomerServiceTest {
         assertThat(actual).isEqualTo(customer);
     }
 
+    private long calls(String operation, String outcome) {
+        return meterRegistry.get(CustomerService.METRIC_NAME)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+
     @Test
     void willThrowWhenGetCustomerReturnEmptyOptional() {
         // Given
-        int id = 10;
+        long id = 10L;
         Mockito.when(customerDAO.selectCustomerById(id)).thenReturn(Optional.empty());
 
         // When
@@ -78,6 +283,8 @@ class CustomerServiceTest {
         assertThatThrownBy(() -> underTest.getCustomer(id))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("There is no customer with ID = %s".formatted(id));
+        assertThat(calls("getCustomer", "not_found")).isEqualTo(1);
+        assertThat(calls("getCustomer", "found")).isZero();
     }
 
     @Test
@@ -90,7 +297,7 @@ class CustomerServiceTest {
                 20
         );
 
-        Mockito.when(customerDAO.existsPersonWithEmail(email)).thenReturn(false);
+        Mockito.when(customerDAO.insertCustomer(any())).thenReturn(true);
 
         // When
         underTest.addCustomer(registrationRequest);
@@ -104,6 +311,7 @@ class CustomerServiceTest {
         assertThat(capturedCustomer.getName()).isEqualTo(registrationRequest.name());
         assertThat(capturedCustomer.getEmail()).isEqualTo(registrationRequest.email());
         assertThat(capturedCustomer.getAge()).isEqualTo(registrationRequest.age());
+        verify(customerDAO, never()).existsPersonWithEmail(any());
     }
 
     @Test
@@ -116,7 +324,7 @@ class CustomerServiceTest {
                 20
         );
 
-        Mockito.when(customerDAO.existsPersonWithEmail(email)).thenReturn(true);
+        Mockito.when(customerDAO.insertCustomer(any())).thenReturn(false);
 
         // When
         // Then
@@ -124,27 +332,143 @@ class CustomerServiceTest {
                 .isInstanceOf(DuplicateResourceException.class)
                 .hasMessage("Email already taken");
 
-        verify(customerDAO, never()).insertCustomer(any());
+        verify(customerDAO, never()).existsPersonWithEmail(any());
+        assertThat(calls("addCustomer", "duplicate")).isEqualTo(1);
+    }
+
+    @Test
+    void addCustomersInChunksAndReportsDuplicates() {
+        // Given
+        String takenEmail = "taken@mail.com";
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", "alex@mail.com", 20),
+                new CustomerRegistrationRequest("Alex again", "alex@mail.com", 21),
+                new CustomerRegistrationRequest("Taken", takenEmail, 22),
+                new CustomerRegistrationRequest("Sam", "sam@mail.com", 23)
+        );
+        AtomicLong ids = new AtomicLong();
+        Mockito.when(customerDAO.insertCustomers(any())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            customers.stream()
+                    .filter(c -> !c.getEmail().equals(takenEmail))
+                    .forEach(c -> c.setId(ids.incrementAndGet()));
+            return (int) customers.stream().filter(c -> c.getId() != null).count();
+        });
+
+        // When
+        List<CustomerRegistrationResult> actual = underTest.addCustomers(requests);
+
+        // Then
+        verify(customerDAO, Mockito.times(2)).insertCustomers(any());
+        assertThat(actual).containsExactly(
+                new CustomerRegistrationResult("alex@mail.com", CustomerRegistrationResult.Status.CREATED, 1L),
+                new CustomerRegistrationResult("alex@mail.com", CustomerRegistrationResult.Status.DUPLICATE, null),
+                new CustomerRegistrationResult(takenEmail, CustomerRegistrationResult.Status.DUPLICATE, null),
+                new CustomerRegistrationResult("sam@mail.com", CustomerRegistrationResult.Status.CREATED, 2L)
+        );
+    }
+
+    @Test
+    void addCustomersReportsIncompleteRowsAsInvalid() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("No email", null, 20),
+                new CustomerRegistrationRequest("Alex", "alex@mail.com", 21),
+                new CustomerRegistrationRequest(null, "noname@mail.com", 22)
+        );
+        Mockito.when(customerDAO.insertCustomers(any())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            assertThat(customers).extracting(Customer::getEmail).containsExactly("alex@mail.com");
+            customers.forEach(c -> c.setId(1L));
+            return customers.size();
+        });
+
+        // When
+        List<CustomerRegistrationResult> actual = underTest.addCustomers(requests);
+
+        // Then
+        assertThat(actual).containsExactly(
+                CustomerRegistrationResult.invalid(null),
+                new CustomerRegistrationResult("alex@mail.com", CustomerRegistrationResult.Status.CREATED, 1L),
+                CustomerRegistrationResult.invalid("noname@mail.com")
+        );
+    }
+
+    @Test
+    void addCustomersReportsEmailsDifferingInCaseAsDuplicates() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", "Alex@Mail.com", 20),
+                new CustomerRegistrationRequest("Alex again", "alex@mail.com", 21)
+        );
+        Mockito.when(customerDAO.insertCustomers(any())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            assertThat(customers).extracting(Customer::getEmail).containsExactly("Alex@Mail.com");
+            customers.forEach(c -> c.setId(1L));
+            return customers.size();
+        });
+
+        // When
+        List<CustomerRegistrationResult> actual = underTest.addCustomers(requests);
+
+        // Then
+        verify(customerDAO).insertCustomers(any());
+        assertThat(actual).containsExactly(
+                new CustomerRegistrationResult("Alex@Mail.com", CustomerRegistrationResult.Status.CREATED, 1L),
+                new CustomerRegistrationResult("alex@mail.com", CustomerRegistrationResult.Status.DUPLICATE, null)
+        );
+    }
+
+    @Test
+    void importCustomers() {
+        // Given
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", "alex@mail.com", 20),
+                new CustomerRegistrationRequest("Sam", "sam@mail.com", 23)
+        );
+        Mockito.when(customerDAO.importCustomers(any())).thenAnswer(invocation -> {
+            Iterator<Customer> customers = invocation.getArgument(0);
+            List<Customer> imported = new ArrayList<>();
+            customers.forEachRemaining(imported::add);
+            // the second one was skipped
+            Customer inserted = imported.get(0);
+            return new CustomerCounts(
+                    Map.of(inserted.getAge(), 1L),
+                    Map.of(CustomerSearch.emailDomain(inserted.getEmail()), 1L)
+            );
+        });
+
+        // When
+        CustomerImport actual = underTest.importCustomers(requests.iterator());
+
+        // Then
+        assertThat(actual.getPhase()).isEqualTo(CustomerImport.Phase.DONE);
+        assertThat(actual.getRowsRead()).isEqualTo(2);
+        assertThat(actual.getRowsInserted()).isEqualTo(1);
+        assertThat(actual.getRowsSkipped()).isEqualTo(1);
+        assertThat(underTest.getRunningImports()).isEmpty();
     }
 
     @Test
     void deleteCustomerById() {
         // Given
-        int id = 1;
-        Mockito.when(customerDAO.existsPersonWithId(id)).thenReturn(true);
+        long id = 1L;
+        Mockito.when(customerDAO.deleteCustomerById(id))
+                .thenReturn(Optional.of(new Customer(id, "Alex", "alex@mail.com", 20)));
 
         // When
         underTest.deleteCustomerById(id);
 
         // Then
         verify(customerDAO).deleteCustomerById(id);
+        verify(customerDAO, never()).existsPersonWithId(id);
     }
 
     @Test
     void willThrowWhenDeleteCustomerByIdWithIdNotFound() {
         // Given
-        int id = 1;
-        Mockito.when(customerDAO.existsPersonWithId(id)).thenReturn(false);
+        long id = 1L;
+        Mockito.when(customerDAO.deleteCustomerById(id)).thenReturn(Optional.empty());
 
         // When
         // Then
@@ -152,13 +476,13 @@ class CustomerServiceTest {
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("There is no customer with ID = %s".formatted(id));
 
-        verify(customerDAO, never()).deleteCustomerById(id);
+        verify(customerDAO, never()).existsPersonWithId(id);
     }
 
     @Test
     void updateCustomer() {
         // Given
-        int id = 10;
+        long id = 10L;
         Customer customer = new Customer(id, "Alex", "mail", 19);
         String email = FAKER.internet().safeEmailAddress();
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
@@ -168,6 +492,7 @@ class CustomerServiceTest {
         );
         Mockito.when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
         Mockito.when(customerDAO.existsPersonWithEmail(email)).thenReturn(false);
+        Mockito.when(customerDAO.updateCustomer(any())).thenReturn(Optional.of(customer));
 
         // When
         underTest.updateCustomer(id, updateRequest);
@@ -184,10 +509,39 @@ class CustomerServiceTest {
         assertThat(captured.getAge()).isEqualTo(updateRequest.age());
     }
 
+    @Test
+    void updateCustomerPassesOnlyChangedFields() {
+        // Given
+        long id = 10L;
+        Customer customer = new Customer(id, "Alex", "mail", 19);
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
+                FAKER.name().fullName(),
+                customer.getEmail(),
+                null
+        );
+        Mockito.when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        Mockito.when(customerDAO.updateCustomer(any())).thenReturn(Optional.of(customer));
+
+        // When
+        underTest.updateCustomer(id, updateRequest);
+
+        // Then
+        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDAO).updateCustomer(customerArgumentCaptor.capture());
+
+        Customer captured = customerArgumentCaptor.getValue();
+
+        assertThat(captured.getId()).isEqualTo(id);
+        assertThat(captured.getName()).isEqualTo(updateRequest.name());
+        assertThat(captured.getEmail()).isNull();
+        assertThat(captured.getAge()).isNull();
+        verify(customerDAO, never()).existsPersonWithEmail(any());
+    }
+
     @Test
     void willThrowWhenUpdateCustomerWithoutChanges() {
         // Given
-        int id = 10;
+        long id = 10L;
         Customer customer = new Customer(id, "Alex", "mail", 20);
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 customer.getName(),
@@ -208,7 +562,7 @@ class CustomerServiceTest {
     @Test
     void willThrowWhenUpdateCustomerWhenEmailExists() {
         // Given
-        int id = 10;
+        long id = 10L;
         Customer customer = new Customer(id, "Alex", "mail", 20);
         CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
                 customer.getName(),
@@ -226,4 +580,64 @@ class CustomerServiceTest {
 
         verify(customerDAO, never()).updateCustomer(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void willThrowWhenUpdateCustomerLosesEmailRace() {
+        // Given
+        long id = 10L;
+        Customer customer = new Customer(id, "Alex", "mail", 20);
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
+                null,
+                FAKER.internet().safeEmailAddress(),
+                null
+        );
+        Mockito.when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        Mockito.when(customerDAO.existsPersonWithEmail(updateRequest.email())).thenReturn(false);
+        Mockito.doThrow(new DuplicateKeyException(Customer.EMAIL_UNIQUE_CONSTRAINT))
+                .when(customerDAO).updateCustomer(any());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
+                .isInstanceOf(DuplicateResourceException.class)
+                .hasMessage("Email already taken");
+        assertThat(calls("updateCustomer", "duplicate")).isEqualTo(1);
+        assertThat(calls("getCustomer", "found")).isEqualTo(1);
+    }
+
+    @Test
+    void willThrowWhenCustomerIsDeletedBeforeUpdate() {
+        // Given
+        long id = 10L;
+        Customer customer = new Customer(id, "Alex", "alex@amigoscode.com", 20);
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest("Alexa", null, null);
+        Mockito.when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        Mockito.when(customerDAO.updateCustomer(any())).thenReturn(Optional.empty());
+
+        // When
+        // Then
+        assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("There is no customer with ID = %s".formatted(id));
+        assertThat(calls("updateCustomer", "not_found")).isEqualTo(1);
+    }
+
+    @Test
+    void canChangeTheCaseOfOwnEmail() {
+        // Given
+        long id = 10L;
+        Customer customer = new Customer(id, "Alex", "alex@amigoscode.com", 20);
+        CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(null, "Alex@AmigosCode.com", null);
+        Mockito.when(customerDAO.selectCustomerById(id)).thenReturn(Optional.of(customer));
+        Mockito.when(customerDAO.updateCustomer(any())).thenReturn(Optional.of(customer));
+
+        // When
+        underTest.updateCustomer(id, updateRequest);
+
+        // Then
+        ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDAO).updateCustomer(customerArgumentCaptor.capture());
+        assertThat(customerArgumentCaptor.getValue().getEmail()).isEqualTo(updateRequest.email());
+        verify(customerDAO, never()).existsPersonWithEmail(any());
+    }
+}
@@ -0,0 +1,117 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.customer.CustomerStats.AgeBucket;
+import com.amigoscode.customer.CustomerStats.EmailDomainCount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerStatsDataAccessServiceTest {
+
+    private CustomerAggregates aggregates;
+    private CustomerStatsDataAccessService underTest;
+
+    @BeforeEach
+    void setUp() {
+        // starts with Alex, 21, and Jamile, 23, both at gmail.com
+        CustomerListDataAccessService delegate = new CustomerListDataAccessService();
+        aggregates = new CustomerAggregates(
+                delegate,
+                new CustomerStatsProperties(true, 10, 10, Duration.ofMinutes(10)),
+                new SimpleMeterRegistry()
+        );
+        aggregates.reconcile();
+        underTest = new CustomerStatsDataAccessService(delegate, aggregates);
+    }
+
+    @Test
+    void insertsAreCountedOnceInserted() {
+        // When
+        underTest.insertCustomer(new Customer("Ali", "ali@mail.com", 35));
+        underTest.insertCustomer(new Customer("Alex", "ALEX@gmail.com", 40));
+        underTest.insertCustomers(List.of(
+                new Customer("Jamila", "jamila@mail.com", 36),
+                new Customer("Jamile", "jamile@gmail.com", 50)
+        ));
+
+        // Then
+        var actual = aggregates.stats();
+        assertThat(actual.count()).isEqualTo(4);
+        assertThat(actual.ageHistogram()).containsExactly(new AgeBucket(20, 29, 2), new AgeBucket(30, 39, 2));
+    }
+
+    @Test
+    void updatesMoveCustomersBetweenBucketsAndDomains() {
+        // Given
+        Customer changes = new Customer();
+        changes.setId(1L);
+        changes.setEmail("alex@mail.com");
+        changes.setAge(30);
+
+        // When
+        underTest.updateCustomer(changes);
+
+        // Then
+        var actual = aggregates.stats();
+        assertThat(actual.count()).isEqualTo(2);
+        assertThat(actual.ageHistogram()).containsExactly(new AgeBucket(20, 29, 1), new AgeBucket(30, 39, 1));
+        assertThat(actual.topEmailDomains()).containsExactly(
+                new EmailDomainCount("gmail.com", 1),
+                new EmailDomainCount("mail.com", 1)
+        );
+    }
+
+    @Test
+    void failedUpdateLeavesStatsAlone() {
+        // Given
+        Customer changes = new Customer();
+        changes.setId(1L);
+        changes.setEmail("jamile@gmail.com");
+        changes.setAge(30);
+
+        // When
+        assertThatThrownBy(() -> underTest.updateCustomer(changes)).isInstanceOf(DuplicateKeyException.class);
+
+        // Then
+        assertThat(aggregates.stats().ageHistogram()).containsExactly(new AgeBucket(20, 29, 2));
+    }
+
+    @Test
+    void deletesAreCountedOnceDeleted() {
+        // When
+        underTest.deleteCustomerById(1L);
+        underTest.deleteCustomerById(1L);
+        underTest.deleteCustomerById(42L);
+
+        // Then
+        var actual = aggregates.stats();
+        assertThat(actual.count()).isEqualTo(1);
+        assertThat(actual.topEmailDomains()).containsExactly(new EmailDomainCount("gmail.com", 1));
+    }
+
+    @Test
+    void importsAreCountedAsInsertedWithoutReconciling() {
+        // Given
+        var reconciledAt = aggregates.stats().reconciledAt();
+
+        // When
+        var inserted = underTest.importCustomers(List.of(
+                new Customer("Ali", "ali@mail.com", 35),
+                new Customer("Alex", "ALEX@gmail.com", 40)
+        ).iterator());
+
+        // Then
+        assertThat(inserted.total()).isEqualTo(1);
+        var actual = aggregates.stats();
+        assertThat(actual.count()).isEqualTo(3);
+        assertThat(actual.ageHistogram()).containsExactly(new AgeBucket(20, 29, 2), new AgeBucket(30, 39, 1));
+        assertThat(actual.reconciledAt()).isEqualTo(reconciledAt);
+    }
+}
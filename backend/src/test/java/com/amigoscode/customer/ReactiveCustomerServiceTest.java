@@ -0,0 +1,231 @@
+package com.amigoscode.customer;
+
+import com.amigoscode.exception.DuplicateResourceException;
+import com.amigoscode.exception.RequestValidationException;
+import com.amigoscode.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCustomerServiceTest {
+
+    private ReactiveCustomerService underTest;
+    @Mock
+    private ReactiveCustomerDAO customerDAO;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ReactiveCustomerService(customerDAO, new CustomerBulkProperties(2));
+    }
+
+    @Test
+    void exportCustomersStreamsAll() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@mail.com", 20);
+        when(customerDAO.selectAllCustomers()).thenReturn(Flux.just(customer));
+
+        // When
+        // Then
+        StepVerifier.create(underTest.exportCustomers())
+                .expectNext(customer)
+                .verifyComplete();
+    }
+
+    @Test
+    void getCustomersUsesDefaultPageSize() {
+        // Given
+        Customer customer = new Customer(1L, "Alex", "alex@mail.com", 20);
+        when(customerDAO.selectCustomers(0L, CustomerService.DEFAULT_PAGE_SIZE + 1)).thenReturn(Flux.just(customer));
+
+        // When
+        // Then
+        StepVerifier.create(underTest.getCustomers(null, null))
+                .expectNext(new CustomerPage(List.of(customer), null))
+                .verifyComplete();
+    }
+
+    @Test
+    void getCustomersReturnsNextCursorWhenThereIsAnotherPage() {
+        // Given
+        Customer first = new Customer(6L, "Alex", "alex@mail.com", 20);
+        Customer second = new Customer(7L, "Jamila", "jamila@mail.com", 21);
+        when(customerDAO.selectCustomers(5L, 2)).thenReturn(Flux.just(first, second));
+
+        // When
+        // Then
+        StepVerifier.create(underTest.getCustomers(5L, 1))
+                .expectNext(new CustomerPage(List.of(first), 6L))
+                .verifyComplete();
+    }
+
+    @Test
+    void getCustomersRejectsInvalidLimit() {
+        StepVerifier.create(underTest.getCustomers(null, 0))
+                .expectError(RequestValidationException.class)
+                .verify();
+        StepVerifier.create(underTest.getCustomers(null, CustomerService.MAX_PAGE_SIZE + 1))
+                .expectError(RequestValidationException.class)
+                .verify();
+    }
+
+    @Test
+    void getCustomerFailsWhenAbsent() {
+        // Given
+        when(customerDAO.selectCustomerById(10L)).thenReturn(Mono.empty());
+
+        // When
+        // Then
+        StepVerifier.create(underTest.getCustomer(10L))
+                .expectErrorMessage("There is no customer with ID = 10")
+                .verify();
+    }
+
+    @Test
+    void addCustomerFailsOnDuplicateEmail() {
+        // Given
+        when(customerDAO.insertCustomer(any())).thenReturn(Mono.just(false));
+
+        // When
+        // Then
+        StepVerifier.create(underTest.addCustomer(new CustomerRegistrationRequest("Alex", "alex@mail.com", 20)))
+                .expectError(DuplicateResourceException.class)
+                .verify();
+    }
+
+    @Test
+    void addCustomersReportsEveryRequestInOrder() {
+        // Given
+        when(customerDAO.insertCustomers(anyList())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            customers.stream()
+                    .filter(customer -> !customer.getEmail().equals("taken@mail.com"))
+                    .forEach(customer -> customer.setId((long) customer.getEmail().length()));
+            return Mono.just(customers.size());
+        });
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex", "alex@mail.com", 20),
+                new CustomerRegistrationRequest("Alex", "alex@mail.com", 20),
+                new CustomerRegistrationRequest("Taken", "taken@mail.com", 20)
+        );
+
+        // When
+        // Then
+        StepVerifier.create(underTest.addCustomers(requests))
+                .expectNext(new CustomerRegistrationResult("alex@mail.com", CustomerRegistrationResult.Status.CREATED, 13L))
+                .expectNext(CustomerRegistrationResult.duplicate("alex@mail.com"))
+                .expectNext(CustomerRegistrationResult.duplicate("taken@mail.com"))
+                .verifyComplete();
+    }
+
+    @Test
+    void addCustomersReportsIncompleteRowsAsInvalid() {
+        // Given
+        when(customerDAO.insertCustomers(anyList())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            assertThat(customers).extracting(Customer::getEmail).containsExactly("alex@mail.com");
+            customers.forEach(customer -> customer.setId(1L));
+            return Mono.just(customers.size());
+        });
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("No email", null, 20),
+                new CustomerRegistrationRequest("Alex", "alex@mail.com", 20)
+        );
+
+        // When
+        // Then
+        StepVerifier.create(underTest.addCustomers(requests))
+                .expectNext(CustomerRegistrationResult.invalid(null))
+                .expectNext(new CustomerRegistrationResult("alex@mail.com", CustomerRegistrationResult.Status.CREATED, 1L))
+                .verifyComplete();
+    }
+
+    @Test
+    void deleteCustomerByIdFailsWhenAbsent() {
+        // Given
+        when(customerDAO.deleteCustomerById(10L)).thenReturn(Mono.just(false));
+
+        // When
+        // Then
+        StepVerifier.create(underTest.deleteCustomerById(10L))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void updateCustomerPassesOnlyChangedFields() {
+        // Given
+        Customer customer = new Customer(10L, "Alex", "alex@mail.com", 20);
+        when(customerDAO.selectCustomerById(10L)).thenReturn(Mono.just(customer));
+        when(customerDAO.updateCustomer(any())).thenReturn(Mono.empty());
+
+        // When
+        StepVerifier.create(underTest.updateCustomer(10L, new CustomerUpdateRequest("Alex", null, 21)))
+                .verifyComplete();
+
+        // Then
+        ArgumentCaptor<Customer> captor = ArgumentCaptor.forClass(Customer.class);
+        verify(customerDAO).updateCustomer(captor.capture());
+        assertThat(captor.getValue()).isEqualTo(new Customer(10L, null, null, 21));
+        verify(customerDAO, never()).existsPersonWithEmail(any());
+    }
+
+    @Test
+    void updateCustomerFailsWithoutChanges() {
+        // Given
+        Customer customer = new Customer(10L, "Alex", "alex@mail.com", 20);
+        when(customerDAO.selectCustomerById(10L)).thenReturn(Mono.just(customer));
+
+        // When
+        // Then
+        StepVerifier.create(underTest.updateCustomer(10L, new CustomerUpdateRequest("Alex", "alex@mail.com", 20)))
+                .expectErrorMessage("no data changes found")
+                .verify();
+    }
+
+    @Test
+    void updateCustomerFailsWhenEmailTaken() {
+        // Given
+        Customer customer = new Customer(10L, "Alex", "alex@mail.com", 20);
+        when(customerDAO.selectCustomerById(10L)).thenReturn(Mono.just(customer));
+        when(customerDAO.existsPersonWithEmail("taken@mail.com")).thenReturn(Mono.just(true));
+
+        // When
+        // Then
+        StepVerifier.create(underTest.updateCustomer(10L, new CustomerUpdateRequest(null, "taken@mail.com", null)))
+                .expectError(DuplicateResourceException.class)
+                .verify();
+        verify(customerDAO, never()).updateCustomer(any());
+    }
+
+    @Test
+    void updateCustomerMapsLostEmailRaceToDuplicate() {
+        // Given
+        Customer customer = new Customer(10L, "Alex", "alex@mail.com", 20);
+        when(customerDAO.selectCustomerById(10L)).thenReturn(Mono.just(customer));
+        when(customerDAO.existsPersonWithEmail("taken@mail.com")).thenReturn(Mono.just(false));
+        when(customerDAO.updateCustomer(any())).thenReturn(Mono.error(new DuplicateKeyException("duplicate")));
+
+        // When
+        // Then
+        StepVerifier.create(underTest.updateCustomer(10L, new CustomerUpdateRequest(null, "taken@mail.com", null)))
+                .expectError(DuplicateResourceException.class)
+                .verify();
+    }
+}
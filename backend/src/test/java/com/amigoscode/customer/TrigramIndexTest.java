@@ -0,0 +1,63 @@
+package com.amigoscode.customer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+    @Test
+    void trigramsAreThoseOfPgTrgm() {
+        // When
+        var actual = TrigramIndex.trigrams("Word, two!");
+
+        // Then
+        // SELECT show_trgm('Word, two!')
+        assertThat(actual).containsExactlyInAnyOrder("  t", "  w", " tw", " wo", "ord", "rd ", "two", "wo ", "wor");
+    }
+
+    @Test
+    void similarityIsThatOfPgTrgm() {
+        // When
+        var actual = TrigramIndex.similarity(TrigramIndex.trigrams("word"), TrigramIndex.trigrams("two words"));
+
+        // Then
+        // SELECT similarity('word', 'two words')
+        assertThat(actual).isEqualTo(0.36363637f);
+        assertThat(TrigramIndex.similarity(TrigramIndex.trigrams("word"), TrigramIndex.trigrams("!?"))).isZero();
+    }
+
+    @Test
+    void replaceKeepsSharedTrigramsAndDropsTheRest() {
+        // Given
+        TrigramIndex underTest = new TrigramIndex();
+        underTest.add(1L, "Alex");
+        underTest.add(2L, "Alexis");
+
+        // When
+        underTest.replace(1L, "Alex", "Alexander");
+
+        // Then
+        assertThat(underTest.candidates(TrigramIndex.trigrams("alex"), 1)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(underTest.candidates(Set.of("nde"), 1)).containsExactly(1L);
+        assertThat(underTest.candidates(Set.of("ex "), 1)).isEmpty();
+    }
+
+    @Test
+    void candidatesShareEnoughTrigrams() {
+        // Given
+        TrigramIndex underTest = new TrigramIndex();
+        underTest.add(1L, "Jamila");
+        underTest.add(2L, "Jamal");
+        underTest.remove(2L, "Jamal");
+        underTest.add(3L, "Bob");
+
+        // When
+        var actual = underTest.candidates(TrigramIndex.trigrams("jamal"), 2);
+
+        // Then
+        assertThat(actual).containsExactly(1L);
+    }
+}
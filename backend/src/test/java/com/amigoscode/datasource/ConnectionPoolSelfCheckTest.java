@@ -0,0 +1,84 @@
+package com.amigoscode.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionPoolSelfCheckTest {
+
+    @Test
+    void balancedPoolPassesCheck() {
+        // When
+        var actual = ConnectionPoolSelfCheck.check("primary", 20, 200, false, 10, 0);
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void shippedConfigurationPassesCheck() throws IOException {
+        // Given
+        List<PropertySource<?>> documents = new YamlPropertySourceLoader()
+                .load("application.yml", new ClassPathResource("application.yml"));
+        Binder binder = new Binder(ConfigurationPropertySources.from(documents.stream()
+                .filter(document -> !document.containsProperty("spring.config.activate.on-profile"))
+                .toList()));
+        ConnectionPoolProperties properties = binder.bindOrCreate("customer.pool", ConnectionPoolProperties.class);
+        boolean virtualThreads = binder.bind("spring.threads.virtual.enabled", Boolean.class).orElse(false);
+        int maxThreads = binder.bind("server.tomcat.threads.max", Integer.class)
+                .orElse(ConnectionPoolSelfCheck.DEFAULT_TOMCAT_MAX_THREADS);
+
+        // When
+        var actual = ConnectionPoolSelfCheck.check("primary", ConnectionPools.maximumPoolSize(properties),
+                maxThreads, virtualThreads, properties.maxThreadsPerConnection(), properties.expectedConcurrentCalls());
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void warnsWhenPoolIsLargerThanThreadCount() {
+        // When
+        var actual = ConnectionPoolSelfCheck.check("primary", 50, 20, false, 10, 0);
+
+        // Then
+        assertThat(actual).singleElement().asString().contains("never used");
+    }
+
+    @Test
+    void warnsWhenTooManyThreadsShareAConnection() {
+        // When
+        var actual = ConnectionPoolSelfCheck.check("primary", 9, 200, false, 10, 0);
+
+        // Then
+        assertThat(actual).singleElement().asString().contains("wait for a connection");
+    }
+
+    @Test
+    void poolLargeEnoughForExpectedLoadPassesCheckWithVirtualThreads() {
+        // When
+        var actual = ConnectionPoolSelfCheck.check("primary", 9, 200, true, 10, 4);
+
+        // Then
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void warnsWhenExpectedLoadNeedsMoreConnectionsWithVirtualThreads() {
+        // When
+        var actual = ConnectionPoolSelfCheck.check("primary", 9, 200, true, 10, 20);
+
+        // Then
+        assertThat(actual).singleElement().asString()
+                .contains("virtual threads")
+                .contains("keeps 20 connections busy, more than its 9");
+    }
+}
@@ -0,0 +1,94 @@
+package com.amigoscode.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionPoolsTest {
+
+    private static ConnectionPoolProperties properties(Integer cores, double requestsPerSecond) {
+        return new ConnectionPoolProperties(cores, 1, requestsPerSecond, Duration.ofMillis(10), 10, 1, 256, 5);
+    }
+
+    @Test
+    void poolIsSizedForDatabaseCoresWhenLoadIsUnknown() {
+        // When
+        var actual = ConnectionPools.maximumPoolSize(properties(8, 0));
+
+        // Then
+        assertThat(actual).isEqualTo(17);
+    }
+
+    @Test
+    void poolKeepsHikariDefaultWhenDatabaseAndLoadAreUnknown() {
+        // When
+        var actual = ConnectionPools.maximumPoolSize(properties(null, 0));
+
+        // Then
+        assertThat(actual).isEqualTo(ConnectionPools.DEFAULT_POOL_SIZE);
+    }
+
+    @Test
+    void poolIsSizedForExpectedLoadWhenDatabaseIsUnknown() {
+        // When
+        var actual = ConnectionPools.maximumPoolSize(properties(null, 2000));
+
+        // Then
+        assertThat(actual).isEqualTo(40);
+    }
+
+    @Test
+    void poolShrinksToExpectedLoad() {
+        // Given
+        // 200 calls/s holding a connection for 10 ms keep 2 connections busy, 4 with headroom
+
+        // When
+        var actual = ConnectionPools.maximumPoolSize(properties(8, 200));
+
+        // Then
+        assertThat(actual).isEqualTo(4);
+    }
+
+    @Test
+    void poolNeverGrowsPastDatabaseCapacity() {
+        // When
+        var actual = ConnectionPools.maximumPoolSize(properties(2, 100_000));
+
+        // Then
+        assertThat(actual).isEqualTo(5);
+    }
+
+    @Test
+    void poolKeepsAMinimumSize() {
+        // When
+        var actual = ConnectionPools.maximumPoolSize(properties(8, 1));
+
+        // Then
+        assertThat(actual).isEqualTo(ConnectionPools.MINIMUM_POOL_SIZE);
+    }
+
+    @Test
+    void poolEnablesServerSideStatementCache() {
+        // Given
+        String url = "jdbc:postgresql://localhost:5332/customer";
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl(url);
+
+        // When
+        try (var actual = ConnectionPools.create(dataSourceProperties, properties(4, 0), url, "primary")) {
+
+            // Then
+            assertThat(actual.getJdbcUrl()).isEqualTo(url);
+            assertThat(actual.getPoolName()).isEqualTo("primary");
+            assertThat(actual.getMaximumPoolSize()).isEqualTo(9);
+            assertThat(actual.getDataSourceProperties())
+                    .containsEntry("prepareThreshold", 1)
+                    .containsEntry("preparedStatementCacheQueries", 256)
+                    .containsEntry("preparedStatementCacheSizeMiB", 5)
+                    .containsEntry("reWriteBatchedInserts", true);
+        }
+    }
+}
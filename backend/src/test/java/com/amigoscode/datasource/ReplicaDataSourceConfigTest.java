@@ -0,0 +1,120 @@
+package com.amigoscode.datasource;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDAO;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The two databases are independent, which makes it visible where each read was served.
+ */
+@Testcontainers
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "customer.replicas.enabled=true",
+                "customer.replicas.read-your-writes-window=PT1M",
+                "customer.cache.enabled=false",
+                "customer.email-filter.enabled=false"
+        }
+)
+class ReplicaDataSourceConfigTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("amigoscode-primary")
+            .withUsername("amigoscode")
+            .withPassword("password");
+
+    @Container
+    private static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("amigoscode-replica")
+            .withUsername("amigoscode")
+            .withPassword("password");
+
+    @Autowired
+    private CustomerDAO customerDAO;
+
+    @DynamicPropertySource
+    private static void registerDataSourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", PRIMARY::getJdbcUrl);
+        registry.add("spring.datasource.username", PRIMARY::getUsername);
+        registry.add("spring.datasource.password", PRIMARY::getPassword);
+        registry.add("customer.replicas.urls[0]", REPLICA::getJdbcUrl);
+    }
+
+    @BeforeAll
+    static void beforeAll() {
+        // replication would copy the schema, here the replica is migrated on its own
+        Flyway.configure()
+                .dataSource(REPLICA.getJdbcUrl(), REPLICA.getUsername(), REPLICA.getPassword())
+                .load()
+                .migrate();
+    }
+
+    private static JdbcTemplate jdbcTemplate(PostgreSQLContainer<?> container) {
+        return new JdbcTemplate(new DriverManagerDataSource(
+                container.getJdbcUrl(), container.getUsername(), container.getPassword()
+        ));
+    }
+
+    private static long insertDirectly(PostgreSQLContainer<?> container, String email) {
+        return jdbcTemplate(container).queryForObject(
+                "INSERT INTO customer(name, email, age) VALUES ('Alex', ?, 20) RETURNING id",
+                Long.class,
+                email
+        );
+    }
+
+    @Test
+    void readsAreServedByReplica() {
+        // Given
+        String replicaEmail = UUID.randomUUID() + "@amigoscode.com";
+        String primaryEmail = UUID.randomUUID() + "@amigoscode.com";
+        long id = insertDirectly(REPLICA, replicaEmail);
+        insertDirectly(PRIMARY, primaryEmail);
+
+        // When
+        var actual = customerDAO.selectCustomerById(id).map(Customer::getEmail);
+
+        // Then
+        assertThat(actual).contains(replicaEmail);
+        assertThat(customerDAO.existsPersonWithEmail(replicaEmail)).isTrue();
+        assertThat(customerDAO.existsPersonWithEmail(primaryEmail)).isFalse();
+    }
+
+    @Test
+    void writesGoToPrimaryAndStayReadable() {
+        // Given
+        String email = UUID.randomUUID() + "@amigoscode.com";
+        Customer customer = new Customer("Jamila", email, 19);
+
+        // When
+        customerDAO.insertCustomer(customer);
+
+        // Then
+        Long id = customer.getId();
+        assertThat(jdbcTemplate(PRIMARY).queryForObject(
+                "SELECT count(*) FROM customer WHERE email = ?", Integer.class, email
+        )).isEqualTo(1);
+        assertThat(jdbcTemplate(REPLICA).queryForObject(
+                "SELECT count(*) FROM customer WHERE email = ?", Integer.class, email
+        )).isZero();
+        assertThat(customerDAO.selectCustomerById(id)).isPresent();
+        assertThat(customerDAO.existsPersonWithEmail(email)).isTrue();
+    }
+}
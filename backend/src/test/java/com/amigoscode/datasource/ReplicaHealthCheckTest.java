@@ -0,0 +1,84 @@
+package com.amigoscode.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The first replica is the primary database itself, the second one does not exist.
+ */
+@Testcontainers
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "customer.replicas.enabled=true",
+                "customer.replicas.health-check-interval=PT0.1S",
+                "spring.datasource.hikari.connection-timeout=250",
+                "customer.cache.enabled=false",
+                "customer.email-filter.enabled=false"
+        }
+)
+class ReplicaHealthCheckTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("amigoscode-primary")
+            .withUsername("amigoscode")
+            .withPassword("password");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private List<ScheduledTaskHolder> scheduledTaskHolders;
+
+    @DynamicPropertySource
+    private static void registerDataSourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", PRIMARY::getJdbcUrl);
+        registry.add("spring.datasource.username", PRIMARY::getUsername);
+        registry.add("spring.datasource.password", PRIMARY::getPassword);
+        // both urls from one source, an indexed list is never merged across sources
+        registry.add("customer.replicas.urls[0]", PRIMARY::getJdbcUrl);
+        registry.add("customer.replicas.urls[1]", () -> "jdbc:postgresql://localhost:1/customer");
+    }
+
+    @Test
+    void healthCheckIsScheduledThoughDataSourceIsProxied() {
+        // When
+        var tasks = scheduledTaskHolders.stream()
+                .flatMap(holder -> holder.getScheduledTasks().stream())
+                .map(Object::toString)
+                .toList();
+
+        // Then
+        assertThat(dataSource).isNotInstanceOf(ReplicaRoutingDataSource.class);
+        assertThat(tasks).contains(ReplicaHealthCheck.class.getName() + ".checkReplicas");
+    }
+
+    @Test
+    void failedReplicaIsTakenOutOfRotation() throws InterruptedException {
+        // Given
+        ReplicaRoutingDataSource routing = ReplicaRoutingDataSource.unwrap(dataSource);
+
+        // When
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (routing.healthyReplicas().size() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        // Then
+        assertThat(routing.healthyReplicas()).containsExactly("replica-0");
+    }
+}
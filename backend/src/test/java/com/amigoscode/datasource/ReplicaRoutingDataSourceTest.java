@@ -0,0 +1,122 @@
+package com.amigoscode.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    private ReplicaRoutingDataSource underTest;
+    private SimpleMeterRegistry meterRegistry;
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica0;
+    @Mock
+    private DataSource replica1;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", replica0);
+        replicas.put("replica-1", replica1);
+        underTest = new ReplicaRoutingDataSource(primary, replicas, meterRegistry);
+        underTest.afterPropertiesSet();
+    }
+
+    private static Connection connection(DataSource dataSource, boolean valid) throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        if (valid) {
+            when(connection.isValid(2)).thenReturn(true);
+        }
+        return connection;
+    }
+
+    @Test
+    void connectionsComeFromPrimaryOutsideReadOnlyWork() throws SQLException {
+        // Given
+        Connection expected = connection(primary, false);
+
+        // When
+        var actual = underTest.getConnection();
+
+        // Then
+        assertThat(actual).isSameAs(expected);
+    }
+
+    @Test
+    void readOnlyConnectionsAlternateBetweenReplicas() throws SQLException {
+        // Given
+        Connection first = connection(replica0, false);
+        Connection second = connection(replica1, false);
+
+        // When
+        var actual = ReplicaRoutingContext.readOnly(() -> List.of(
+                getConnection(), getConnection(), getConnection()
+        ));
+
+        // Then
+        assertThat(actual).containsExactly(first, second, first);
+        assertThat(meterRegistry.get("customer.datasource.routing").tag("target", "replica-0").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void unhealthyReplicasAreSkipped() throws SQLException {
+        // Given
+        connection(replica0, true);
+        when(replica1.getConnection()).thenThrow(new SQLException("connection refused"));
+        underTest.checkReplicas();
+        Connection expected = mock(Connection.class);
+        when(replica0.getConnection()).thenReturn(expected);
+
+        // When
+        var actual = ReplicaRoutingContext.readOnly(() -> List.of(getConnection(), getConnection()));
+
+        // Then
+        assertThat(underTest.healthyReplicas()).containsExactly("replica-0");
+        assertThat(actual).containsExactly(expected, expected);
+    }
+
+    @Test
+    void readOnlyConnectionsFallBackToPrimaryWhenNoReplicaIsHealthy() throws SQLException {
+        // Given
+        connection(replica0, false);
+        when(replica1.getConnection()).thenThrow(new SQLException("connection refused"));
+        underTest.checkReplicas();
+        Connection expected = connection(primary, false);
+
+        // When
+        var actual = ReplicaRoutingContext.readOnly(this::getConnection);
+
+        // Then
+        assertThat(actual).isSameAs(expected);
+        assertThat(meterRegistry.get("customer.datasource.routing.fallback").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("customer.datasource.replicas.healthy").gauge().value()).isZero();
+    }
+
+    private Connection getConnection() {
+        try {
+            return underTest.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
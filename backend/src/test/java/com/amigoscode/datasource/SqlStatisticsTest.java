@@ -0,0 +1,133 @@
+package com.amigoscode.datasource;
+
+import com.amigoscode.AbstractTestcontainers;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlStatisticsTest extends AbstractTestcontainers {
+
+    private SqlStatistics underTest;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        tracking(500);
+    }
+
+    private void tracking(int maximumStatements) {
+        underTest = new SqlStatistics(new SqlStatisticsProperties(true, Duration.ofSeconds(10), maximumStatements, 0));
+        jdbcTemplate = new JdbcTemplate(ProxyDataSourceBuilder
+                .create(new DriverManagerDataSource(
+                        POSTGRE_SQL_CONTAINER.getJdbcUrl(),
+                        POSTGRE_SQL_CONTAINER.getUsername(),
+                        POSTGRE_SQL_CONTAINER.getPassword()
+                ))
+                .listener(underTest)
+                .methodListener(underTest)
+                .proxyResultSet()
+                .build());
+    }
+
+    private SqlStatementSnapshot statement(String text) {
+        var statements = underTest.top(Comparator.comparingLong(SqlStatementSnapshot::calls), 100);
+        return statements.stream()
+                .filter(snapshot -> snapshot.statement().equals(text))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no %s in %s".formatted(text, statements)));
+    }
+
+    @Test
+    void statementsAreAggregatedByNormalizedText() {
+        // Given
+        String name = FAKER.name().fullName();
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update(
+                    "INSERT INTO customer(name, email, age) VALUES (?, ?, ?)",
+                    name, UUID.randomUUID() + "@amigoscode.com", 20
+            );
+        }
+
+        // When
+        var inserted = jdbcTemplate.queryForList("SELECT id FROM customer WHERE name = ?", Integer.class, name);
+        jdbcTemplate.queryForList("SELECT id FROM   customer\n WHERE name = '%s'".formatted(name.replace("'", "''")), Integer.class);
+
+        // Then
+        SqlStatementSnapshot insert = statement("INSERT INTO customer(name, email, age) VALUES (?, ?, ?)");
+        assertThat(insert.calls()).isEqualTo(3);
+        assertThat(insert.rows()).isEqualTo(3);
+        assertThat(insert.errors()).isZero();
+
+        SqlStatementSnapshot select = statement("SELECT id FROM customer WHERE name = ?");
+        assertThat(inserted).hasSize(3);
+        assertThat(select.calls()).isEqualTo(2);
+        assertThat(select.rows()).isEqualTo(6);
+        assertThat(select.maxMillis()).isGreaterThan(0);
+        assertThat(select.totalMillis()).isGreaterThanOrEqualTo(select.maxMillis());
+    }
+
+    @Test
+    void resetDropsStatistics() {
+        // Given
+        jdbcTemplate.queryForObject("SELECT count(*) FROM customer", Long.class);
+
+        // When
+        underTest.reset();
+
+        // Then
+        assertThat(underTest.top(Comparator.comparingLong(SqlStatementSnapshot::calls), 10)).isEmpty();
+    }
+
+    @Test
+    void statementsAfterResetAreTracked() {
+        // Given
+        tracking(2);
+        jdbcTemplate.queryForObject("SELECT count(*) FROM customer", Long.class);
+        jdbcTemplate.queryForList("SELECT id FROM customer", Long.class);
+        underTest.reset();
+
+        // When
+        jdbcTemplate.queryForList("SELECT name FROM customer", String.class);
+
+        // Then
+        assertThat(statement("SELECT name FROM customer").calls()).isEqualTo(1);
+    }
+
+    @Test
+    void inlinedLiteralsDoNotUseUpStatements() {
+        // Given
+        tracking(2);
+        for (int age = 0; age < 5; age++) {
+            jdbcTemplate.queryForList("SELECT id FROM customer WHERE age > " + age, Long.class);
+        }
+
+        // When
+        jdbcTemplate.queryForObject("SELECT count(*) FROM customer", Long.class);
+
+        // Then
+        assertThat(statement("SELECT id FROM customer WHERE age > ?").calls()).isEqualTo(5);
+        assertThat(statement("SELECT count(*) FROM customer").calls()).isEqualTo(1);
+    }
+
+    @Test
+    void literalsAndInListsAreNormalized() {
+        // When
+        var actual = SqlStatistics.normalize("""
+                SELECT c1_0.id FROM customer c1_0
+                WHERE c1_0.email = 'it''s@mail.com' AND c1_0.age > 18 AND c1_0.id IN (?, ?,?)
+                """);
+
+        // Then
+        assertThat(actual).isEqualTo(
+                "SELECT c1_0.id FROM customer c1_0 WHERE c1_0.email = ? AND c1_0.age > ? AND c1_0.id IN (?)"
+        );
+    }
+}
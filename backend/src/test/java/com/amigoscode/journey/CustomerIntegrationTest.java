@@ -1,8 +1,14 @@
 package com.amigoscode.journey;
 
 import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerImport;
+import com.amigoscode.customer.CustomerMatch;
+import com.amigoscode.customer.CustomerPage;
 import com.amigoscode.customer.CustomerRegistrationRequest;
+import com.amigoscode.customer.CustomerSearchPage;
+import com.amigoscode.customer.CustomerStats;
 import com.amigoscode.customer.CustomerUpdateRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.javafaker.Faker;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,8 +18,12 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -49,16 +59,7 @@ public class CustomerIntegrationTest {
                 .isOk();
 
         // get all customers
-        List<Customer> allCustomers = webTestClient.get()
-                .uri(URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<Customer> allCustomers = getAllCustomers();
 
         // make sure that customer is present
         Customer expectedCustomer = new Customer(name, email, age);
@@ -67,7 +68,7 @@ public class CustomerIntegrationTest {
                 .contains(expectedCustomer);
 
         // get customer by id
-        int id = allCustomers.stream()
+        long id = allCustomers.stream()
                 .filter(c -> c.getName().equals(request.name())
                         && c.getEmail().equals(request.email()) && c.getAge().equals(request.age()))
                 .map(Customer::getId)
@@ -87,7 +88,7 @@ public class CustomerIntegrationTest {
     }
 
     @Test
-    void canDeleteACustomer() {
+    void canExportCustomers() throws Exception {
         // create registration request
         Faker faker = Faker.instance();
 
@@ -108,20 +109,255 @@ public class CustomerIntegrationTest {
                 .expectStatus()
                 .isOk();
 
-        // get all customers
-        List<Customer> allCustomers = webTestClient.get()
+        // export all customers
+        String export = webTestClient.get()
+                .uri(URI + "/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        // make sure that every customer is exported once per line
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Customer> exportedCustomers = new ArrayList<>();
+        for (String line : export.split("\n")) {
+            exportedCustomers.add(objectMapper.readValue(line, Customer.class));
+        }
+
+        assertThat(exportedCustomers)
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+                .contains(new Customer(name, email, age));
+        assertThat(exportedCustomers).hasSameSizeAs(getAllCustomers());
+    }
+
+    @Test
+    void canImportCustomers() {
+        // create csv and ndjson import bodies
+        Faker faker = Faker.instance();
+
+        String csvEmail = faker.name().username() + UUID.randomUUID() + "@tesmail.com";
+        String ndjsonEmail = faker.name().username() + UUID.randomUUID() + "@tesmail.com";
+        String csv = """
+                name,email,age
+                "Csv, Customer",%s,30
+                Csv Duplicate,%s,31
+                """.formatted(csvEmail, csvEmail);
+        String ndjson = """
+                {"name":"Ndjson Customer","email":"%s","age":40}
+                """.formatted(ndjsonEmail);
+
+        // send the imports
+        CustomerImport csvImport = webTestClient.post()
+                .uri(URI + "/import")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .bodyValue(csv)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerImport.class)
+                .returnResult()
+                .getResponseBody();
+
+        CustomerImport ndjsonImport = webTestClient.post()
+                .uri(URI + "/import")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(ndjson)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerImport.class)
+                .returnResult()
+                .getResponseBody();
+
+        // make sure that imported customers are present
+        assertThat(csvImport.getRowsRead()).isEqualTo(2);
+        assertThat(csvImport.getRowsInserted()).isEqualTo(1);
+        assertThat(ndjsonImport.getRowsInserted()).isEqualTo(1);
+        assertThat(getAllCustomers())
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+                .contains(
+                        new Customer("Csv, Customer", csvEmail, 30),
+                        new Customer("Ndjson Customer", ndjsonEmail, 40)
+                );
+    }
+
+    @Test
+    void canSearchCustomers() {
+        // register customers at a domain of their own
+        String domain = UUID.randomUUID() + ".search.test";
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest("Alex Young", "alex@" + domain, 20),
+                new CustomerRegistrationRequest("Alex Middle", "alex.middle@" + domain, 40),
+                new CustomerRegistrationRequest("Alex Old", "alex.old@" + domain, 60),
+                new CustomerRegistrationRequest("Bob", "bob@" + domain, 40)
+        );
+        webTestClient.post()
+                .uri(URI + "/bulk")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requests)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        // page through the matches, oldest first
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        do {
+            Optional<String> after = Optional.ofNullable(cursor);
+            CustomerSearchPage page = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder.path(URI + "/search")
+                            .queryParam("name", "alex")
+                            .queryParam("emailDomain", domain)
+                            .queryParam("minAge", 30)
+                            .queryParam("sort", "age")
+                            .queryParam("direction", "desc")
+                            .queryParamIfPresent("cursor", after)
+                            .queryParam("limit", 1)
+                            .build())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBody(CustomerSearchPage.class)
+                    .returnResult()
+                    .getResponseBody();
+
+            page.customers().forEach(customer -> names.add(customer.getName()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(names).containsExactly("Alex Old", "Alex Middle");
+
+        // reject a sort that is not supported
+        webTestClient.get()
+                .uri(URI + "/search?sort=email")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void canFindSimilarCustomers() {
+        // register customers with a made-up word as name, no hex letters so UUID emails stay dissimilar
+        String word = Faker.instance().regexify("[g-z]{8}");
+        String domain = UUID.randomUUID() + ".test";
+        List<CustomerRegistrationRequest> requests = List.of(
+                new CustomerRegistrationRequest(word, "exact@" + domain, 20),
+                new CustomerRegistrationRequest(word.substring(0, 6), "shorter@" + domain, 30),
+                new CustomerRegistrationRequest("Bob", "bob@" + domain, 40)
+        );
+        webTestClient.post()
+                .uri(URI + "/bulk")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requests)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        // search with a typo, best match first
+        List<CustomerMatch> matches = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(URI + "/search/similar")
+                        .queryParam("q", word.substring(0, 7) + "x")
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(CustomerMatch.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(matches).extracting(match -> match.customer().getEmail())
+                .containsExactly("exact@" + domain, "shorter@" + domain);
+        assertThat(matches).extracting(CustomerMatch::similarity).isSortedAccordingTo(Comparator.reverseOrder());
+
+        // reject a query without text
+        webTestClient.get()
+                .uri(URI + "/search/similar?q=")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void canGetStats() {
+        CustomerStats before = getStats();
+
+        // register a customer
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                "Alex", UUID.randomUUID() + "@stats.test", 42
+        );
+        webTestClient.post()
                 .uri(URI)
                 .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        // the aggregates count it right away
+        CustomerStats after = getStats();
+        assertThat(after.count()).isEqualTo(before.count() + 1);
+        assertThat(after.ageHistogram())
+                .filteredOn(bucket -> bucket.minAge() <= 42 && 42 <= bucket.maxAge())
+                .singleElement()
+                .satisfies(bucket -> assertThat(bucket.count()).isPositive());
+        assertThat(after.ageHistogram().stream().mapToLong(CustomerStats.AgeBucket::count).sum())
+                .isEqualTo(after.count());
+        assertThat(after.reconciledAt()).isNotNull();
+    }
+
+    private CustomerStats getStats() {
+        return webTestClient.get()
+                .uri(URI + "/stats")
+                .accept(MediaType.APPLICATION_JSON)
                 .exchange()
                 .expectStatus()
                 .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
+                .expectBody(CustomerStats.class)
                 .returnResult()
                 .getResponseBody();
+    }
+
+    @Test
+    void canDeleteACustomer() {
+        // create registration request
+        Faker faker = Faker.instance();
+
+        String name = faker.name().fullName();
+        String email = name.replace(" ", "").toLowerCase().concat("@tesmail.com");
+        int age = RANDOM.nextInt(1, 100);
+
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                name, email, age
+        );
+        // send a POST request
+        webTestClient.post()
+                .uri(URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        // get all customers
+        List<Customer> allCustomers = getAllCustomers();
 
         // get customer by id
-        int id = allCustomers.stream()
+        long id = allCustomers.stream()
                 .filter(c -> c.getName().equals(request.name())
                         && c.getEmail().equals(request.email()) && c.getAge().equals(request.age()))
                 .map(Customer::getId)
@@ -167,19 +403,10 @@ public class CustomerIntegrationTest {
                 .isOk();
 
         // get all customers
-        List<Customer> allCustomers = webTestClient.get()
-                .uri(URI)
-                .accept(MediaType.APPLICATION_JSON)
-                .exchange()
-                .expectStatus()
-                .isOk()
-                .expectBodyList(new ParameterizedTypeReference<Customer>() {
-                })
-                .returnResult()
-                .getResponseBody();
+        List<Customer> allCustomers = getAllCustomers();
 
         // update customer by id
-        int id = allCustomers.stream()
+        long id = allCustomers.stream()
                 .filter(c -> c.getName().equals(request.name())
                         && c.getEmail().equals(request.email()) && c.getAge().equals(request.age()))
                 .map(Customer::getId)
@@ -213,4 +440,29 @@ public class CustomerIntegrationTest {
 
         assertThat(actualUpdated).isEqualTo(expectedUpdatedCustomer);
     }
+
+    private List<Customer> getAllCustomers() {
+        List<Customer> allCustomers = new ArrayList<>();
+        Long cursor = null;
+        do {
+            Optional<Long> after = Optional.ofNullable(cursor);
+            CustomerPage page = webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder.path(URI)
+                            .queryParamIfPresent("after", after)
+                            .queryParam("limit", 1000)
+                            .build())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus()
+                    .isOk()
+                    .expectBody(CustomerPage.class)
+                    .returnResult()
+                    .getResponseBody();
+
+            allCustomers.addAll(page.customers());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        return allCustomers;
+    }
 }
@@ -0,0 +1,286 @@
+package com.amigoscode.journey;
+
+import com.amigoscode.AbstractTestcontainers;
+import com.amigoscode.customer.CustomerRegistrationRequest;
+import com.amigoscode.customer.CustomerRegistrationResult;
+import com.amigoscode.customer.CustomerUpdateRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Open-loop load test of the whole stack. Requests are started at a fixed arrival rate
+ * whether or not earlier ones have finished, and latency is measured from the time a
+ * request was due rather than from when a worker got to it, so a stalled server shows
+ * up in the percentiles instead of quietly lowering the load (coordinated omission).
+ * <p>
+ * Only runs when asked for, e.g.
+ * {@code mvn test -Dtest=CustomerLoadTest -Dloadtest=true -Dloadtest.rate=500 -Dloadtest.mixes=READ_HEAVY}
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class CustomerLoadTest extends AbstractTestcontainers {
+
+    public static final String URI = "/api/v1/customers";
+
+    private static final double RATE = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+    private static final Duration WARMUP = Duration.parse(System.getProperty("loadtest.warmup", "PT5S"));
+    private static final int CONNECTIONS = Integer.getInteger("loadtest.connections", 64);
+    private static final int SEED_CUSTOMERS = Integer.getInteger("loadtest.seed", 10_000);
+    private static final List<String> MIXES = Arrays.asList(
+            System.getProperty("loadtest.mixes", "READ_HEAVY,WRITE_HEAVY,REGISTRATION_BURST").split(",")
+    );
+    // one minute in nanoseconds, anything slower is a failure anyway
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    enum Operation {
+        GET_CUSTOMER,
+        LIST_CUSTOMERS,
+        REGISTER_CUSTOMER,
+        BULK_REGISTER_CUSTOMERS,
+        UPDATE_CUSTOMER
+    }
+
+    enum Mix {
+        READ_HEAVY(Map.of(
+                Operation.GET_CUSTOMER, 70,
+                Operation.LIST_CUSTOMERS, 20,
+                Operation.REGISTER_CUSTOMER, 5,
+                Operation.UPDATE_CUSTOMER, 5
+        )),
+        WRITE_HEAVY(Map.of(
+                Operation.GET_CUSTOMER, 20,
+                Operation.LIST_CUSTOMERS, 5,
+                Operation.REGISTER_CUSTOMER, 40,
+                Operation.UPDATE_CUSTOMER, 35
+        )),
+        // one second at five times the rate every five seconds
+        REGISTRATION_BURST(Map.of(
+                Operation.REGISTER_CUSTOMER, 80,
+                Operation.BULK_REGISTER_CUSTOMERS, 20
+        )) {
+            @Override
+            double rateAt(double rate, long elapsedNanos) {
+                return TimeUnit.NANOSECONDS.toSeconds(elapsedNanos) % 5 == 0 ? rate * 5 : rate;
+            }
+        };
+
+        private final Operation[] operations;
+
+        Mix(Map<Operation, Integer> weights) {
+            this.operations = weights.entrySet().stream()
+                    .flatMap(weight -> IntStream.range(0, weight.getValue()).mapToObj(i -> weight.getKey()))
+                    .toArray(Operation[]::new);
+        }
+
+        Operation next() {
+            return operations[ThreadLocalRandom.current().nextInt(operations.length)];
+        }
+
+        double rateAt(double rate, long elapsedNanos) {
+            return rate;
+        }
+    }
+
+    private static class Result {
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+        private final LongAdder errors = new LongAdder();
+    }
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = webTestClient.mutate()
+                .responseTimeout(Duration.ofMinutes(1))
+                .build();
+        for (int i = 0; i < SEED_CUSTOMERS; i += 1000) {
+            ids.addAll(registerCustomers(Math.min(1000, SEED_CUSTOMERS - i)));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Mix.class)
+    void customerApiUnderLoad(Mix mix) throws InterruptedException, IOException {
+        Assumptions.assumeTrue(MIXES.contains(mix.name()), () -> mix + " not in loadtest.mixes");
+
+        run(mix, WARMUP);
+        long start = System.nanoTime();
+        Map<Operation, Result> results = run(mix, DURATION);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Path report = writeReport(mix, results, elapsedSeconds);
+        log.info("{} at {} req/s for {}, report written to {}", mix, RATE, DURATION, report);
+
+        assertThat(results.values()).allMatch(result -> result.errors.sum() == 0);
+    }
+
+    /**
+     * Writes one line of percentiles per operation into target/loadtest, next to the JMH
+     * results in target/jmh.
+     */
+    private static Path writeReport(Mix mix, Map<Operation, Result> results, double elapsedSeconds)
+            throws IOException {
+        StringBuilder report = new StringBuilder();
+        report.append("%s at %.0f req/s for %s%n".formatted(mix, RATE, DURATION));
+        report.append("%-24s %8s %10s %10s %10s %10s %10s %7s%n".formatted(
+                "operation", "count", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors"));
+        results.forEach((operation, result) -> {
+            Histogram latencies = result.latencies;
+            if (latencies.getTotalCount() == 0) {
+                return;
+            }
+            report.append("%-24s %8d %10.1f %10.2f %10.2f %10.2f %10.2f %7d%n".formatted(
+                    operation,
+                    latencies.getTotalCount(),
+                    latencies.getTotalCount() / elapsedSeconds,
+                    latencies.getValueAtPercentile(50) / 1e6,
+                    latencies.getValueAtPercentile(99) / 1e6,
+                    latencies.getValueAtPercentile(99.9) / 1e6,
+                    latencies.getMaxValue() / 1e6,
+                    result.errors.sum()));
+        });
+        Path directory = Files.createDirectories(Path.of("target", "loadtest"));
+        return Files.writeString(directory.resolve("customer-%s.txt".formatted(mix)), report);
+    }
+
+    private Map<Operation, Result> run(Mix mix, Duration duration) throws InterruptedException {
+        Map<Operation, Result> results = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            results.put(operation, new Result());
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(CONNECTIONS);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long intended = start;
+        while (intended < end) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long intendedStart = intended;
+            Operation operation = mix.next();
+            workers.execute(() -> {
+                Result result = results.get(operation);
+                try {
+                    perform(operation);
+                } catch (Throwable e) {
+                    result.errors.increment();
+                }
+                result.latencies.recordValue(Math.min(System.nanoTime() - intendedStart, HIGHEST_LATENCY));
+            });
+            intended += (long) (1e9 / mix.rateAt(RATE, intended - start));
+        }
+        workers.shutdown();
+        assertThat(workers.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        return results;
+    }
+
+    private void perform(Operation operation) {
+        switch (operation) {
+            case GET_CUSTOMER -> webTestClient.get()
+                    .uri(URI + "/{id}", randomId())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus()
+                    .isOk();
+            case LIST_CUSTOMERS -> webTestClient.get()
+                    .uri(uriBuilder -> uriBuilder.path(URI)
+                            .queryParam("after", randomId())
+                            .queryParam("limit", 100)
+                            .build())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange()
+                    .expectStatus()
+                    .isOk();
+            case REGISTER_CUSTOMER -> webTestClient.post()
+                    .uri(URI)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Mono.just(registrationRequest()), CustomerRegistrationRequest.class)
+                    .exchange()
+                    .expectStatus()
+                    .isOk();
+            case BULK_REGISTER_CUSTOMERS -> registerCustomers(100);
+            case UPDATE_CUSTOMER -> webTestClient.put()
+                    .uri(URI + "/{id}", randomId())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Mono.just(new CustomerUpdateRequest(FAKER.name().fullName() + " " + UUID.randomUUID(), null, null)),
+                            CustomerUpdateRequest.class)
+                    .exchange()
+                    .expectStatus()
+                    .isOk();
+        }
+    }
+
+    private List<Long> registerCustomers(int count) {
+        List<CustomerRegistrationRequest> requests = IntStream.range(0, count)
+                .mapToObj(i -> registrationRequest())
+                .toList();
+        return webTestClient.post()
+                .uri(URI + "/bulk")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requests)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(new ParameterizedTypeReference<List<CustomerRegistrationResult>>() {
+                })
+                .returnResult()
+                .getResponseBody()
+                .stream()
+                .map(CustomerRegistrationResult::id)
+                .toList();
+    }
+
+    private CustomerRegistrationRequest registrationRequest() {
+        return new CustomerRegistrationRequest(
+                FAKER.name().fullName(),
+                UUID.randomUUID() + "@loadtest.com",
+                ThreadLocalRandom.current().nextInt(16, 100)
+        );
+    }
+
+    private long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,116 @@
+package com.amigoscode.journey;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDAO;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "management.tracing.sampling.probability=1.0",
+                "customer.tracing.exporter=none"
+        }
+)
+@AutoConfigureObservability
+public class CustomerTracingIntegrationTest {
+
+    private static final String URI = "/api/v1/customers";
+
+    @TestConfiguration
+    static class InMemoryExporterConfig {
+
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private CustomerDAO customerDAO;
+    @Autowired
+    private InMemorySpanExporter exporter;
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    private List<SpanData> exportedSpans() {
+        tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+        return exporter.getFinishedSpanItems();
+    }
+
+    // the server span ends after the response has been written, so it can trail the client
+    private List<SpanData> exportedSpansOfRequest() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        List<SpanData> spans = exportedSpans();
+        while (spans.stream().noneMatch(span -> span.getName().startsWith("http get"))
+                && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            spans = exportedSpans();
+        }
+        return spans;
+    }
+
+    private static SpanData span(List<SpanData> spans, String name) {
+        return spans.stream()
+                .filter(span -> span.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no span %s in %s".formatted(
+                        name, spans.stream().map(SpanData::getName).toList()
+                )));
+    }
+
+    @Test
+    void getCustomerIsTracedFromControllerToStatement() throws InterruptedException {
+        // Given
+        Customer customer = new Customer("Alex", UUID.randomUUID() + "@amigoscode.com", 20);
+        customerDAO.insertCustomer(customer);
+        exportedSpans();
+        exporter.reset();
+
+        // When
+        webTestClient.get()
+                .uri(URI + "/{id}", customer.getId())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        // Then
+        List<SpanData> spans = exportedSpansOfRequest();
+        SpanData request = spans.stream()
+                .filter(span -> span.getName().startsWith("http get"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(spans.stream().map(SpanData::getName).toList()));
+        SpanData service = span(spans, "CustomerService.getCustomer");
+        SpanData dao = span(spans, "CustomerDAO.selectCustomerById");
+        SpanData query = span(spans, "query");
+        SpanData resultSet = span(spans, "result-set");
+
+        assertThat(service.getTraceId()).isEqualTo(request.getTraceId());
+        assertThat(service.getParentSpanId()).isEqualTo(request.getSpanId());
+        assertThat(dao.getParentSpanId()).isEqualTo(service.getSpanId());
+        assertThat(dao.getAttributes().get(AttributeKey.stringKey("outcome"))).isEqualTo("found");
+        assertThat(query.getTraceId()).isEqualTo(request.getTraceId());
+        assertThat(query.getAttributes().get(AttributeKey.stringKey("jdbc.query[0]")))
+                .containsIgnoringCase("FROM customer");
+        assertThat(resultSet.getAttributes().get(AttributeKey.stringKey("jdbc.row-count"))).isEqualTo("1");
+    }
+}
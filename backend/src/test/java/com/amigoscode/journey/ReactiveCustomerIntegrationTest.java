@@ -0,0 +1,186 @@
+package com.amigoscode.journey;
+
+import com.amigoscode.customer.Customer;
+import com.amigoscode.customer.CustomerDAO;
+import com.amigoscode.customer.CustomerImport;
+import com.amigoscode.customer.CustomerPage;
+import com.amigoscode.customer.CustomerRegistrationRequest;
+import com.amigoscode.customer.CustomerService;
+import com.amigoscode.customer.CustomerUpdateRequest;
+import com.github.javafaker.Faker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the test bootstrapper picks the web stack from test properties, not from profile documents
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive"
+)
+@ActiveProfiles("reactive")
+public class ReactiveCustomerIntegrationTest {
+
+    private static final Random RANDOM = new Random();
+    public static final String URI = "/api/v1/customers";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    void blockingDataAccessIsNotStarted() {
+        assertThat(applicationContext.getBeanNamesForType(CustomerDAO.class)).isEmpty();
+        assertThat(applicationContext.getBeanNamesForType(CustomerService.class)).isEmpty();
+    }
+
+    @Test
+    void canRegisterUpdateAndDeleteACustomer() {
+        // create registration request
+        Faker faker = Faker.instance();
+
+        String name = faker.name().fullName();
+        String email = faker.name().username() + UUID.randomUUID() + "@tesmail.com";
+        int age = RANDOM.nextInt(1, 100);
+
+        CustomerRegistrationRequest request = new CustomerRegistrationRequest(
+                name, email, age
+        );
+        // send a POST request
+        webTestClient.post()
+                .uri(URI)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        // registering the same email again is a conflict
+        webTestClient.post()
+                .uri(URI)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(request), CustomerRegistrationRequest.class)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(409);
+
+        // stream all customers and find the new one
+        List<Customer> allCustomers = webTestClient.get()
+                .uri(URI + "/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .returnResult(Customer.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        long id = allCustomers.stream()
+                .filter(c -> c.getEmail().equals(email))
+                .map(Customer::getId)
+                .findFirst()
+                .orElseThrow();
+
+        // update the customer
+        webTestClient.put()
+                .uri(URI + "/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just(new CustomerUpdateRequest(null, null, age + 1)), CustomerUpdateRequest.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        webTestClient.get()
+                .uri(URI + "/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(Customer.class)
+                .isEqualTo(new Customer(id, name, email, age + 1));
+
+        // delete the customer
+        webTestClient.delete()
+                .uri(URI + "/{id}", id)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        webTestClient.get()
+                .uri(URI + "/{id}", id)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
+    @Test
+    void canPageAndImportCustomers() {
+        // import two customers, one of them twice
+        String email = "import" + UUID.randomUUID() + "@tesmail.com";
+        String otherEmail = "import" + UUID.randomUUID() + "@tesmail.com";
+        String ndjson = """
+                {"name":"First","email":"%s","age":40}
+                {"name":"Again","email":"%s","age":41}
+                {"name":"Second","email":"%s","age":42}
+                """.formatted(email, email, otherEmail);
+
+        CustomerImport customerImport = webTestClient.post()
+                .uri(URI + "/import")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(ndjson)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerImport.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(customerImport.getRowsRead()).isEqualTo(3);
+        assertThat(customerImport.getRowsInserted()).isEqualTo(2);
+
+        // page through with a limit, the same contract as the servlet API
+        CustomerPage page = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(URI).queryParam("limit", 2).build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerPage.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(page.customers()).hasSize(2);
+        assertThat(page.customers().get(0).getId()).isLessThan(page.customers().get(1).getId());
+        assertThat(page.nextCursor()).isEqualTo(page.customers().get(1).getId());
+
+        CustomerPage nextPage = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(URI)
+                        .queryParam("after", page.nextCursor())
+                        .queryParam("limit", 2)
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(CustomerPage.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(nextPage.customers()).allMatch(customer -> customer.getId() > page.nextCursor());
+    }
+}
@@ -0,0 +1,58 @@
+package com.amigoscode.logging;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorrelationIdFilterTest {
+
+    private final CorrelationIdFilter underTest = new CorrelationIdFilter();
+
+    private String filter(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        AtomicReference<String> seen = new AtomicReference<>();
+        underTest.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest req, jakarta.servlet.ServletResponse res) {
+                seen.set(MDC.get(CorrelationIdFilter.MDC_KEY));
+            }
+        });
+        return seen.get();
+    }
+
+    @Test
+    void callersCorrelationIdIsLoggedAndEchoed() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(CorrelationIdFilter.HEADER, "order-42");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        String logged = filter(request, response);
+
+        // Then
+        assertThat(logged).isEqualTo("order-42");
+        assertThat(response.getHeader(CorrelationIdFilter.HEADER)).isEqualTo("order-42");
+        assertThat(MDC.get(CorrelationIdFilter.MDC_KEY)).isNull();
+    }
+
+    @Test
+    void missingOrUnsafeCorrelationIdIsReplaced() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(CorrelationIdFilter.HEADER, "forged\n{\"level\":\"ERROR\"}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        String logged = filter(request, response);
+
+        // Then
+        assertThat(logged).hasSize(36).isEqualTo(response.getHeader(CorrelationIdFilter.HEADER));
+        assertThat(MDC.get(CorrelationIdFilter.MDC_KEY)).isNull();
+    }
+}